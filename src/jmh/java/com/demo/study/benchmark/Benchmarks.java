@@ -0,0 +1,91 @@
+package com.demo.study.benchmark;
+
+import com.demo.study.model.GenerateConfig;
+import com.demo.study.model.MyUtils;
+import com.demo.study.model.Node;
+import com.demo.study.model.NodeConfig;
+import com.demo.study.model.algo.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 基准测试共用的数据：固定种子生成的节点、路由算法和待发送的数据，每次运行的输入相同，结果可以互相比较
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/18 10:15
+ */
+final class Benchmarks {
+    /**
+     * 生成节点的随机数种子
+     */
+    static final long SEED = 20240818L;
+    /**
+     * 三维空间的边长
+     */
+    static final int SPACE_SIZE = 500;
+    /**
+     * 相邻主节点的间距
+     */
+    static final int GAP_DISTANCE = 50;
+
+    private Benchmarks() {
+    }
+
+    /**
+     * 用 {@link MyUtils#generateNodes2} 生成大约nodeCount个节点：每个主节点周围的节点数量按nodeCount计算
+     *
+     * @param nodeCount 节点数量
+     * @param config    节点配置
+     * @return 节点，源节点是第一个，终点是最后一个
+     */
+    static List<Node> nodes(int nodeCount,
+                            NodeConfig config) {
+        int majorNodeSize = SPACE_SIZE / GAP_DISTANCE + 1;
+        GenerateConfig generateConfig = GenerateConfig.builder()
+                .x(SPACE_SIZE)
+                .y(SPACE_SIZE)
+                .z(SPACE_SIZE)
+                .gapDistance(GAP_DISTANCE)
+                .aroundNodeSize(Math.max(1, (nodeCount - majorNodeSize) / (majorNodeSize - 2)))
+                .initEnergy(config.getEnergy())
+                .build();
+        return MyUtils.generateNodes2(new SplittableRandom(SEED), generateConfig);
+    }
+
+    /**
+     * @param algoName 算法的类名
+     * @return 路由算法
+     */
+    static Algorithm algorithm(String algoName) {
+        switch (algoName) {
+            case "DsAlgo":
+                return new DsAlgo();
+            case "DssAlgo":
+                return new DssAlgo();
+            case "DbrAlgo":
+                return new DbrAlgo();
+            case "AllAcoAlgo":
+                return new AllAcoAlgo();
+            case "MyRouteAlgo":
+                return new MyRouteAlgo();
+            default:
+                throw new IllegalArgumentException("algoName: " + algoName);
+        }
+    }
+
+    /**
+     * @param payloadSize 字节数
+     * @return payloadSize个字节的文本数据
+     */
+    static String data(int payloadSize) {
+        char[] chars = new char[payloadSize];
+        Arrays.fill(chars, 'a');
+        for (int i = 0; i < payloadSize; i += 26) {
+            chars[i] = (char) ('a' + i / 26 % 26);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,76 @@
+package com.demo.study.benchmark;
+
+import com.demo.study.model.MyUtils;
+import com.demo.study.model.Node;
+import com.demo.study.model.NodeConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 建立邻里关系（{@link MyUtils#initNeighbouringNodesForAll}）和计算夹角余弦值（{@link MyUtils#cosine(Node, Node, Node)}）的耗时
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/18 10:45
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NeighborBenchmark {
+    /**
+     * 节点数量
+     */
+    @Param({"100", "500", "2000"})
+    private int nodeCount;
+
+    private final NodeConfig config = new NodeConfig();
+    private List<Node> nodes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        nodes = Benchmarks.nodes(nodeCount, config);
+    }
+
+    /**
+     * 每次调用前清空邻居集合，initNeighbouringNodesForAll每次从没有邻居开始建立
+     */
+    @State(Scope.Thread)
+    public static class EmptyNeighbors {
+        @Setup(Level.Invocation)
+        public void clear(NeighborBenchmark benchmark) {
+            for (Node node : benchmark.nodes) {
+                node.getOpticalNeighborNodes().clear();
+                node.getAcousticNeighborNodes().clear();
+            }
+        }
+    }
+
+    /**
+     * 建立所有节点的光学邻居和声学邻居
+     */
+    @Benchmark
+    public List<Node> initNeighbouringNodesForAll(EmptyNeighbors emptyNeighbors) {
+        MyUtils.initNeighbouringNodesForAll(nodes, config.getOpticalDistance(), config.getEnergyByOptical(), config.getOpticalFlag());
+        MyUtils.initNeighbouringNodesForAll(nodes, config.getAcousticDistance(), config.getEnergyByAcoustic(), config.getAcousticFlag());
+        return nodes;
+    }
+
+    /**
+     * 以源节点为当前节点，计算每个节点作为候选节点时与终点的夹角余弦值
+     */
+    @Benchmark
+    public double cosine() {
+        Node currentNode = nodes.get(0);
+        Node destinationNode = nodes.get(nodes.size() - 1);
+        double sum = 0;
+        for (int i = 1, size = nodes.size(); i < size; i++) {
+            sum += MyUtils.cosine(currentNode, nodes.get(i), destinationNode);
+        }
+        return sum;
+    }
+}
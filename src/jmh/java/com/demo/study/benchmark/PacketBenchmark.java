@@ -0,0 +1,56 @@
+package com.demo.study.benchmark;
+
+import com.demo.study.model.MyUtils;
+import com.demo.study.model.Node;
+import com.demo.study.model.NodeConfig;
+import com.demo.study.model.Packet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分包（{@link MyUtils#splitPacket}）和解码数据（{@link MyUtils#decodeData}）的耗时
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/18 11:00
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketBenchmark {
+    /**
+     * 发送的数据的字节数
+     */
+    @Param({"80", "1024", "16384"})
+    private int payloadSize;
+
+    private final NodeConfig config = new NodeConfig();
+    private Packet packet;
+    private TreeMap<Integer, Packet> subPackets;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Node> nodes = Benchmarks.nodes(100, config);
+        Node sourceNode = nodes.get(0);
+        Node destinationNode = nodes.get(nodes.size() - 1);
+        String data = Benchmarks.data(payloadSize);
+        packet = MyUtils.getPacket(sourceNode, destinationNode, data);
+        subPackets = MyUtils.getSubPackets(sourceNode, destinationNode, data, config.getBytesByOptical());
+    }
+
+    @Benchmark
+    public List<Packet> splitPacket() {
+        return MyUtils.splitPacket(packet, config.getBytesByOptical());
+    }
+
+    @Benchmark
+    public String decodeData() {
+        return MyUtils.decodeData(subPackets);
+    }
+}
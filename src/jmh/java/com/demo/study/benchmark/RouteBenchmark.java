@@ -0,0 +1,109 @@
+package com.demo.study.benchmark;
+
+import com.demo.study.model.*;
+import com.demo.study.model.algo.Algorithm;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一轮路由（{@link Algorithm#route(SimulationConfig)}）的耗时
+ * 关闭分路传送、不模拟陷阱，每次调用后用 {@link NodeStates#restore()} 把修改过的节点（包括能量）恢复到快照，每次调用的初始状态相同。
+ * 每次迭代结束时检查所有调用的结果与第一次路由一致，能量没有恢复时中继节点逐渐耗尽，后面的调用会变成失败。
+ * 所有节点的初始能量都是默认能量的200倍：声学算法（DbrAlgo、AllAcoAlgo）发送1024字节时每一跳需要的能量超过默认能量，
+ * 中继节点按默认能量会因为发送端能量不足而失败，测到的只是失败路径
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/18 10:30
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteBenchmark {
+    /**
+     * 路由算法
+     */
+    @Param({"DsAlgo", "DssAlgo", "DbrAlgo", "AllAcoAlgo", "MyRouteAlgo"})
+    private String algoName;
+    /**
+     * 节点数量
+     */
+    @Param({"100", "500", "2000"})
+    private int nodeCount;
+    /**
+     * 发送的数据的字节数
+     */
+    @Param({"80", "1024"})
+    private int payloadSize;
+
+    private SimulationConfig simulationConfig;
+    private TreeMap<Integer, Packet> sendingPackets;
+    /**
+     * 第一次路由的结果，之后每次调用的结果都应该相同
+     */
+    private boolean expectedSuccess;
+    /**
+     * 本次迭代中结果与第一次路由不同的调用次数
+     */
+    private int mismatchCount;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        NodeConfig config = new NodeConfig();
+        Algorithm algorithm = Benchmarks.algorithm(algoName);
+        List<Node> nodes = Benchmarks.nodes(nodeCount, config);
+        new NeighborBuilder(config, algorithm).build(nodes);
+        for (Node node : nodes) {
+            node.setEnergy(config.getEnergy() * 200);
+        }
+        sendingPackets = MyUtils.getSubPackets(nodes.get(0),
+                nodes.get(nodes.size() - 1),
+                Benchmarks.data(payloadSize),
+                config.getBytesByOptical());
+        simulationConfig = SimulationConfig.builder()
+                .algorithm(algorithm)
+                .nodes(nodes)
+                .topology(Topology.of(nodes))
+                .config(config)
+                .primitivePathFlag(true)
+                .nodeStates(NodeStates.of(nodes))
+                .unavailableInfo(new UnavailableInfo())
+                .failureReasons(new FailureStatistics())
+                .build();
+        expectedSuccess = route();
+        mismatchCount = 0;
+    }
+
+    @Benchmark
+    public boolean route() {
+        simulationConfig.setSubPacketMapping(sendingPackets);
+        simulationConfig.setConsumeTime(new DelayAccumulator());
+        simulationConfig.setConsumeEnergy(new LongAdder());
+        simulationConfig.setHopCount(new AtomicInteger());
+        boolean success = simulationConfig.getAlgorithm().route(simulationConfig);
+        simulationConfig.getNodeStates().restore();
+        if (success != expectedSuccess) {
+            mismatchCount++;
+        }
+        return success;
+    }
+
+    /**
+     * 每次调用的初始状态相同时，结果也与第一次路由相同
+     */
+    @TearDown(Level.Iteration)
+    public void check() {
+        if (mismatchCount > 0) {
+            throw new IllegalStateException(String.format("%s: %d次路由的结果与第一次路由（%s）不同，节点状态没有恢复",
+                    algoName, mismatchCount, expectedSuccess ? "成功" : "失败"));
+        }
+    }
+}
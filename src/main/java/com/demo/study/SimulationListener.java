@@ -0,0 +1,39 @@
+package com.demo.study;
+
+import com.demo.study.model.SimulateRouteConfig;
+import com.demo.study.model.SimulationConfig;
+import com.demo.study.model.SimulationResult;
+
+/**
+ * 监听 {@link SimulationRunner} 的模拟过程，用于收集额外的指标。
+ * 并行执行多次模拟时同一个监听器会被多个线程同时调用，实现需要线程安全
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/16 10:20
+ */
+public interface SimulationListener {
+    /**
+     * 每轮路由结束、恢复节点状态之前调用
+     *
+     * @param simulationConfig 这一轮的配置，包括消耗的时间、能量和路由路线
+     * @param round            第几轮，从1开始
+     * @param success          是否路由成功
+     * @param routeNanos       路由过程消耗的时间（纳秒）
+     */
+    default void onRound(SimulationConfig simulationConfig,
+                         int round,
+                         boolean success,
+                         long routeNanos) {
+    }
+
+    /**
+     * 一次模拟结束后调用
+     *
+     * @param simulateRouteConfig 模拟的配置
+     * @param result              模拟结果
+     */
+    default void onFinish(SimulateRouteConfig simulateRouteConfig,
+                          SimulationResult result) {
+    }
+}
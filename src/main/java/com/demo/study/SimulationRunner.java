@@ -0,0 +1,321 @@
+package com.demo.study;
+
+import com.demo.study.model.*;
+import com.demo.study.model.algo.Algorithm;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.MapUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * 模拟多轮路由过程并统计结果，所有实验共用的模拟引擎
+ * 每轮路由后只恢复这一轮修改过的节点（{@link NodeStates}），结果逐轮累计到 {@link RoundStatistics}，
+ * 每{@link #WINDOW}轮统计一次投递率、时间、能量和跳数，内存与总轮数无关
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/16 10:30
+ */
+@Slf4j
+public class SimulationRunner {
+    /**
+     * 每多少轮统计一次
+     */
+    public static final int WINDOW = 100;
+    /**
+     * 并行执行多次模拟
+     */
+    private final ReplicaRunner replicaRunner;
+    /**
+     * 监听模拟过程
+     */
+    private final List<SimulationListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 使用 {@link ThreadPoolConfig#replicaExecutor()} 并行执行多次模拟
+     */
+    public SimulationRunner() {
+        this(new ReplicaRunner());
+    }
+
+    /**
+     * @param replicaRunner 并行执行多次模拟
+     */
+    public SimulationRunner(ReplicaRunner replicaRunner) {
+        this.replicaRunner = replicaRunner;
+    }
+
+    /**
+     * @param listener 监听模拟过程
+     * @return this
+     */
+    public SimulationRunner addListener(SimulationListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * 并行执行多次模拟，每次模拟在实验独占的节点副本上进行
+     *
+     * @param replicas 实验
+     * @param setup    根据实验和节点副本准备模拟的配置（包括simulationConfig）
+     * @return 模拟结果，顺序与replicas一致
+     */
+    public List<SimulationResult> runAll(List<Replica> replicas,
+                                         BiFunction<Replica, List<Node>, SimulateRouteConfig> setup) {
+        return replicaRunner.run(replicas, (replica, nodes) -> run(setup.apply(replica, nodes), replica.getAlgorithm()));
+    }
+
+    /**
+     * 模拟totalRound轮路由过程。
+     * simulateRouteConfig的结果列表（pdrResults等）不为空时，按是否开启分路传送把平均值追加到对应的列表中
+     *
+     * @param simulateRouteConfig 模拟的配置
+     * @param algorithm           路由算法
+     * @return 模拟结果
+     */
+    public SimulationResult run(SimulateRouteConfig simulateRouteConfig,
+                                Algorithm algorithm) {
+        // 总模拟轮数
+        int totalRound = simulateRouteConfig.getTotalRound();
+        // 全部节点
+        List<Node> nodes = simulateRouteConfig.getNodes();
+        SimulationConfig simulationConfig = simulateRouteConfig.getSimulationConfig();
+        // 记录每轮路由修改过的节点，每轮结束后只恢复这些节点
+        NodeStates nodeStates = NodeStates.of(nodes);
+        simulationConfig.setNodeStates(nodeStates);
+        simulationConfig.setAlgorithm(algorithm);
+        simulationConfig.setDangerousDistance(simulateRouteConfig.getZ() / 2);
+
+        int totalEnergy = simulateRouteConfig.getTotalEnergy();
+        if (totalEnergy <= 0) {
+            for (Node node : nodes) {
+                totalEnergy += node.getEnergy();
+            }
+        }
+
+        // 逐轮累计结果，不保存每一轮的结果
+        RoundStatistics statistics = new RoundStatistics(WINDOW);
+        // 端到端延迟、每跳传输时间和路由算法实际消耗的时间的分布
+        LatencyHistogram delayHistogram = new LatencyHistogram();
+        LatencyHistogram hopHistogram = new LatencyHistogram();
+        LatencyHistogram routeHistogram = new LatencyHistogram();
+        simulationConfig.setHopLatency(hopHistogram);
+        List<Integer> residualEnergyPercents = Lists.newArrayList();
+
+        for (int i = 1; i <= totalRound; i++) {
+            prepareRound(simulateRouteConfig, simulationConfig, i);
+
+            long start = System.nanoTime();
+            boolean isSuccess = algorithm.route(simulationConfig);
+            long routeNanos = System.nanoTime() - start;
+            routeHistogram.record(routeNanos);
+
+            if (isSuccess) {
+                long hundredths = simulationConfig.getConsumeTime().getHundredths();
+                delayHistogram.record(hundredths);
+                statistics.add(true, hundredths, simulationConfig.getConsumeEnergy().intValue(), hopsOf(simulationConfig));
+            } else {
+                statistics.add(false, 0, 0, 0);
+            }
+
+            if (i % WINDOW == 0) {
+                long residualEnergy = residualEnergyOf(simulationConfig);
+                BigDecimal residualEnergyPercent = BigDecimal.valueOf(residualEnergy)
+                        .divide(BigDecimal.valueOf(totalEnergy), 2, RoundingMode.HALF_UP)
+                        .multiply(BigDecimal.valueOf(100));
+                residualEnergyPercents.add(residualEnergyPercent.intValue());
+            }
+
+            for (SimulationListener listener : listeners) {
+                listener.onRound(simulationConfig, i, isSuccess, routeNanos);
+            }
+
+            nodeStates.restoreRound();
+        }
+
+        SimulationResult result = summarize(simulateRouteConfig, algorithm, statistics, residualEnergyPercents)
+                .delayHistogram(delayHistogram)
+                .hopHistogram(hopHistogram)
+                .routeHistogram(routeHistogram)
+                .build();
+        record(simulateRouteConfig, result);
+        log(simulateRouteConfig, result);
+        for (SimulationListener listener : listeners) {
+            listener.onFinish(simulateRouteConfig, result);
+        }
+        return result;
+    }
+
+    /**
+     * 准备一轮路由：每轮发送相同的数据包，生成这一轮的陷阱，重新开始累计时间、能量和路由路线
+     */
+    private static void prepareRound(SimulateRouteConfig simulateRouteConfig,
+                                     SimulationConfig simulationConfig,
+                                     int round) {
+        simulationConfig.setSubPacketMapping(simulateRouteConfig.getSendingPackets());
+        simulationConfig.setConsumeTime(new DelayAccumulator());
+        simulationConfig.setConsumeEnergy(new LongAdder());
+
+        List<List<Integer>> routingPaths = Lists.newArrayList();
+        if (simulationConfig.isPrimitivePathFlag()) {
+            simulationConfig.setHopCount(new AtomicInteger());
+        } else {
+            simulationConfig.setRoutingPath(Lists.newArrayList());
+            routingPaths.add(simulationConfig.getRoutingPath());
+        }
+        simulationConfig.setRoutingPaths(routingPaths);
+
+        simulationConfig.setTrap(simulateRouteConfig.getTrapFactory().apply(round));
+        simulationConfig.setUnavailableLatch(new AtomicInteger(simulationConfig.getTrap().getNodeSequence()));
+        simulationConfig.setDangerousFlag(false);
+        simulationConfig.setDangerousCount(1);
+    }
+
+    /**
+     * @return 这一轮所有分路的跳数之和
+     */
+    private static int hopsOf(SimulationConfig simulationConfig) {
+        if (simulationConfig.isPrimitivePathFlag()) {
+            return simulationConfig.getHopCount().get();
+        }
+        int sum = 0;
+        for (List<Integer> routingPath : simulationConfig.getRoutingPaths()) {
+            sum += routingPath.size();
+        }
+        return sum;
+    }
+
+    /**
+     * @return 全部节点的剩余能量，有能量账本时以账本为准
+     */
+    private static long residualEnergyOf(SimulationConfig simulationConfig) {
+        if (simulationConfig.getEnergyLedger() != null) {
+            return simulationConfig.getEnergyLedger().sum();
+        }
+        long residualEnergy = 0;
+        for (Node node : simulationConfig.getNodes()) {
+            residualEnergy += node.getEnergy();
+        }
+        return residualEnergy;
+    }
+
+    private static SimulationResult.SimulationResultBuilder summarize(SimulateRouteConfig simulateRouteConfig,
+                                              Algorithm algorithm,
+                                              RoundStatistics statistics,
+                                              List<Integer> residualEnergyPercents) {
+        SimulationConfig simulationConfig = simulateRouteConfig.getSimulationConfig();
+
+        UnavailableInfo unavailableInfo = simulationConfig.getUnavailableInfo();
+        return SimulationResult.builder()
+                .algoName(algorithm.getAlgoName())
+                .enableRelayFlag(simulationConfig.isEnableRelayFlag())
+                .nodeSize(simulateRouteConfig.getNodes().size())
+                .totalRound(simulateRouteConfig.getTotalRound())
+                .window(statistics.getWindow())
+                .successCount(statistics.getSuccessCount())
+                .failCount(statistics.getFailCount())
+                .windowPdrs(statistics.getWindowPdrs())
+                .windowConsumeTimes(statistics.getWindowConsumeTimes())
+                .windowConsumeEnergies(statistics.getWindowConsumeEnergies())
+                .residualEnergyPercents(residualEnergyPercents)
+                .windowHops(statistics.getWindowHops())
+                .delay(statistics.getDelay())
+                .energy(statistics.getEnergy())
+                .hop(statistics.getHop())
+                .averagePdr(statistics.getAveragePdr())
+                .averageEnd2EndDelay(statistics.getAverageEnd2EndDelay())
+                .averageResidualEnergyPercent(RoundStatistics.average(residualEnergyPercents))
+                .lifetime(statistics.getLastSuccessRound())
+                .encountered(unavailableInfo == null ? 0 : unavailableInfo.getEncountered().get())
+                .survived(unavailableInfo == null ? 0 : unavailableInfo.getSurvived().get())
+                .failureReasons(simulationConfig.getFailureReasons() == null ? Maps.newLinkedHashMap()
+                        : simulationConfig.getFailureReasons().toMap());
+    }
+
+    /**
+     * 按是否开启分路传送把平均值追加到simulateRouteConfig的结果列表中，列表为空时跳过
+     */
+    private static void record(SimulateRouteConfig simulateRouteConfig,
+                               SimulationResult result) {
+        int index = result.isEnableRelayFlag() ? 1 : 0;
+        if (simulateRouteConfig.getPdrResults() != null) {
+            simulateRouteConfig.getPdrResults().get(index).add(result.getAveragePdr());
+        }
+        if (simulateRouteConfig.getEnd2EndDelayResults() != null) {
+            simulateRouteConfig.getEnd2EndDelayResults().get(index).add(result.getAverageEnd2EndDelay());
+        }
+        if (simulateRouteConfig.getResidualEnergyPercentResults() != null) {
+            simulateRouteConfig.getResidualEnergyPercentResults().get(index).add(result.getAverageResidualEnergyPercent());
+        }
+        if (simulateRouteConfig.getLifetimeResults() != null) {
+            simulateRouteConfig.getLifetimeResults().get(index).add(result.getLifetime());
+        }
+    }
+
+    private static void log(SimulateRouteConfig simulateRouteConfig,
+                            SimulationResult result) {
+        int window = result.getWindow();
+        log.info("{}", result.isEnableRelayFlag() ? "优化后:" : "优化前:");
+        log.info("每{}轮平均包投递率: {}", window, result.getWindowPdrs());
+        log.info("每{}轮平均时间消耗: {}", window, result.getWindowConsumeTimes());
+        log.info("每{}轮平均能量消耗: {}", window, result.getWindowConsumeEnergies());
+        log.info("每{}轮剩余能量占比: {}", window, result.getResidualEnergyPercents());
+        log.info("每{}轮平均路由跳数: {}", window, result.getWindowHops());
+        log.info("成功轮次的时间消耗: {}, 能量消耗: {}, 路由跳数: {}", result.getDelay(), result.getEnergy(), result.getHop());
+        log.info("端到端延迟: {}", formatHundredths(result.getDelayHistogram()));
+        log.info("每跳传输时间: {}", formatHundredths(result.getHopHistogram()));
+        log.info("路由计算耗时(μs): {}", formatMicros(result.getRouteHistogram()));
+        log.info("网络生命周期: {}", result.getLifetime());
+
+        // 下面打印一些总的结果说明信息
+        log.info("");
+        log.info("向量空间: ({},{},{}), 节点数量: {}, 模拟轮数: {}",
+                simulateRouteConfig.getX(), simulateRouteConfig.getY(), simulateRouteConfig.getZ(),
+                result.getNodeSize(), result.getTotalRound());
+        log.info("{}: 成功: {}, 失败: {}, 遇到故障节点次数: {}, 幸存次数: {}",
+                result.isEnableRelayFlag() ? "优化后" : "优化前",
+                result.getSuccessCount(), result.getFailCount(),
+                result.getEncountered(), result.getSurvived());
+
+        if (MapUtils.isNotEmpty(result.getFailureReasons())) {
+            log.info("");
+            log.info("失败原因统计:");
+            AtomicInteger sequence = new AtomicInteger(1);
+            result.getFailureReasons().forEach((k, v) -> {
+                log.info("({}) 失败原因: {}, 次数: {}", sequence.getAndIncrement(), k.getMessage(), v);
+            });
+        }
+
+        log.info("");
+    }
+
+    /**
+     * @param histogram 以百分之一为单位的直方图
+     * @return p50、p99、p999和最大值，保留两位小数
+     */
+    public static String formatHundredths(LatencyHistogram histogram) {
+        return String.format("p50=%s, p99=%s, p999=%s, max=%s",
+                DelayAccumulator.toBigDecimal(histogram.getP50()),
+                DelayAccumulator.toBigDecimal(histogram.getP99()),
+                DelayAccumulator.toBigDecimal(histogram.getP999()),
+                DelayAccumulator.toBigDecimal(histogram.getMax()));
+    }
+
+    /**
+     * @param histogram 以纳秒为单位的直方图
+     * @return p50、p99、p999和最大值（微秒）
+     */
+    public static String formatMicros(LatencyHistogram histogram) {
+        return String.format("p50=%s, p99=%s, p999=%s, max=%s",
+                histogram.getP50() / 1000, histogram.getP99() / 1000, histogram.getP999() / 1000, histogram.getMax() / 1000);
+    }
+}
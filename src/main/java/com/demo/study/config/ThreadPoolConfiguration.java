@@ -0,0 +1,29 @@
+package com.demo.study.config;
+
+import com.demo.study.model.ThreadPoolConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 启动时按配置项修改 {@link ThreadPoolConfig} 中线程池的大小，只记录大小，线程池在第一次使用时创建
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/13 20:48
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ThreadPoolProperties.class)
+public class ThreadPoolConfiguration {
+
+    public ThreadPoolConfiguration(ThreadPoolProperties properties) {
+        ThreadPoolConfig.configure(ThreadPoolConfig.TOPOLOGY, properties.getTopology());
+        ThreadPoolConfig.configure(ThreadPoolConfig.RELAY, properties.getRelay());
+        ThreadPoolConfig.configure(ThreadPoolConfig.REPLICA, properties.getReplica());
+        log.info("线程池大小: {}={}, {}={}, {}={}",
+                ThreadPoolConfig.TOPOLOGY, ThreadPoolConfig.settings(ThreadPoolConfig.TOPOLOGY),
+                ThreadPoolConfig.RELAY, ThreadPoolConfig.settings(ThreadPoolConfig.RELAY),
+                ThreadPoolConfig.REPLICA, ThreadPoolConfig.settings(ThreadPoolConfig.REPLICA));
+    }
+}
@@ -0,0 +1,37 @@
+package com.demo.study.config;
+
+import com.demo.study.model.PoolSettings;
+import com.demo.study.model.ThreadPoolConfig;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 线程池大小的配置项，例如：
+ * study.thread-pool.relay.threads=8
+ * study.thread-pool.replica.queue-capacity=4096
+ * 没有配置的线程数与CPU核数相同
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/13 20:40
+ */
+@Getter
+@Setter
+@ToString
+@ConfigurationProperties(prefix = ThreadPoolConfig.PROPERTY_PREFIX)
+public class ThreadPoolProperties {
+    /**
+     * 建立邻里关系的线程池
+     */
+    private PoolSettings topology = new PoolSettings();
+    /**
+     * 分路传送的线程池
+     */
+    private PoolSettings relay = new PoolSettings();
+    /**
+     * 蒙特卡洛重复实验的线程池
+     */
+    private PoolSettings replica = new PoolSettings();
+}
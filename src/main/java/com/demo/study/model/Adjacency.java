@@ -0,0 +1,131 @@
+package com.demo.study.model;
+
+import java.util.List;
+
+/**
+ * 压缩稀疏行（CSR）格式的邻接表
+ * 所有节点的邻居ID连续保存在一个int数组中，第id个节点的邻居位于[offsets[id], offsets[id + 1])，
+ * 与邻居ID平行的double数组保存节点到邻居的距离。遍历邻居时只需要顺序读数组，不需要访问邻居集合中的对象。
+ * 节点ID与节点在集合中的下标一致
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/6 20:41
+ */
+public class Adjacency {
+    /**
+     * 每个节点的邻居在邻居数组中的起始位置，长度为节点数量+1
+     */
+    private final int[] offsets;
+    /**
+     * 邻居ID
+     */
+    private final int[] neighbors;
+    /**
+     * 节点到邻居的距离，与邻居ID一一对应
+     */
+    private final double[] distances;
+
+    private Adjacency(int[] offsets,
+                      int[] neighbors,
+                      double[] distances) {
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.distances = distances;
+    }
+
+    /**
+     * 按节点当前的邻居集合生成邻接表，邻居的顺序与集合中的顺序一致
+     *
+     * @param nodes 空间中所有节点
+     * @param flag  [0,1,2]，0：光学邻居；1：声学邻居；2：向下找时要用到的节点
+     * @return 邻接表
+     */
+    public static Adjacency of(List<Node> nodes,
+                               int flag) {
+        // 测试flag的值是不是为0、1或者2，不是抛异常
+        if (flag != 0 && flag != 1 && flag != 2) {
+            throw new RuntimeException();
+        }
+        int size = nodes.size();
+        // 统计每个节点的邻居数量，计算起始位置
+        int[] offsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            offsets[i + 1] = offsets[i] + neighborNodes(nodes.get(i), flag).size();
+        }
+        // 按顺序填充邻居ID和距离
+        int[] neighbors = new int[offsets[size]];
+        double[] distances = new double[offsets[size]];
+        for (int i = 0; i < size; i++) {
+            Node node = nodes.get(i);
+            int k = offsets[i];
+            for (Node neighborNode : neighborNodes(node, flag)) {
+                neighbors[k] = neighborNode.getId();
+                distances[k] = MyUtils.distance(node, neighborNode);
+                k++;
+            }
+        }
+        return new Adjacency(offsets, neighbors, distances);
+    }
+
+    /**
+     * 返回节点对应flag的邻居集合
+     */
+    private static List<Node> neighborNodes(Node node,
+                                            int flag) {
+        if (flag == 0) {
+            return node.getOpticalNeighborNodes();
+        }
+        if (flag == 1) {
+            return node.getAcousticNeighborNodes();
+        }
+        return node.getContinueNodes();
+    }
+
+    /**
+     * @param id 节点ID
+     * @return 节点的第一个邻居在数组中的位置
+     */
+    public int start(int id) {
+        return offsets[id];
+    }
+
+    /**
+     * @param id 节点ID
+     * @return 节点的最后一个邻居在数组中的位置+1
+     */
+    public int end(int id) {
+        return offsets[id + 1];
+    }
+
+    /**
+     * @param id 节点ID
+     * @return 节点的邻居数量
+     */
+    public int degree(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    /**
+     * @param k 邻居在数组中的位置
+     * @return 邻居ID
+     */
+    public int neighbor(int k) {
+        return neighbors[k];
+    }
+
+    /**
+     * @param k 邻居在数组中的位置
+     * @return 节点到邻居的距离
+     */
+    public double distance(int k) {
+        return distances[k];
+    }
+
+    /**
+     * @return 节点数量
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+}
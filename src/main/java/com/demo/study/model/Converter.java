@@ -1,8 +1,6 @@
 package com.demo.study.model;
 
 import org.mapstruct.Mapper;
-import org.mapstruct.Mapping;
-import org.mapstruct.Mappings;
 import org.mapstruct.factory.Mappers;
 
 /**
@@ -20,25 +18,10 @@ public interface Converter {
     Converter INSTANCE = Mappers.getMapper(Converter.class);
 
     /**
-     * 复制SimulationConfig类的变量到SimulationConfig类的变量
-     *
-     * @param param 源SimulationConfig类
-     * @return 目标SimulationConfig类
-     */
-    @Mappings({
-            // 忽略目标类的routingPath变量，其他同理
-            @Mapping(target = "routingPath", ignore = true),
-            @Mapping(target = "subPacketMapping", ignore = true),
-            @Mapping(target = "unavailableLatch", ignore = true)
-    })
-    SimulationConfig convertToDsConfig(SimulationConfig param);
-
-    /**
-     * 复制Packet类的变量到Packet类的变量
+     * 复制Packet类的变量到Packet类的变量，数据（Payload）不可修改，直接共享
      *
      * @param param 源Packet类
      * @return 目标Packet类
      */
-    @Mapping(target = "data", ignore = true)
     Packet convertToPacket(Packet param);
 }
\ No newline at end of file
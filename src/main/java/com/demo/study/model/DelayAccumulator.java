@@ -0,0 +1,83 @@
+package com.demo.study.model;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 累加路由过程（包括所有分路）消耗的时间
+ * 时间以百分之一为单位保存为long，每个数据包的传输时间先按四舍五入（HALF_UP）保留两位小数，再累加，
+ * 结果与把 distance / speed 保留两位小数的BigDecimal逐个相加一致。分路并发发送数据包时可以同时累加
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/10 10:26
+ */
+public class DelayAccumulator {
+    /**
+     * 时间保留的小数位数
+     */
+    public static final int SCALE = 2;
+    /**
+     * 1个时间单位等于多少个保存单位
+     */
+    private static final int UNIT = 100;
+    /**
+     * 消耗的时间（百分之一）
+     */
+    private final LongAdder hundredths = new LongAdder();
+
+    /**
+     * 计算传输一个数据包消耗的时间（百分之一），等价于
+     * BigDecimal.valueOf(distance).divide(BigDecimal.valueOf(speed), 2, RoundingMode.HALF_UP)。
+     * 节点坐标是整数，距离是整数的平方根：不是整数时离进位的边界足够远，double的误差不影响进位；
+     * 是整数时double除法的结果是精确的，正好在边界上也会进位
+     *
+     * @param distance 传输距离
+     * @param speed    传输速度
+     * @return 消耗的时间（百分之一）
+     */
+    public static long toHundredths(double distance,
+                                    int speed) {
+        return (long) Math.floor(distance * UNIT / speed + 0.5);
+    }
+
+    /**
+     * 把以百分之一为单位的时间转换成保留两位小数的BigDecimal
+     *
+     * @param hundredths 时间（百分之一）
+     * @return 时间
+     */
+    public static BigDecimal toBigDecimal(long hundredths) {
+        return BigDecimal.valueOf(hundredths, SCALE);
+    }
+
+    /**
+     * 累加传输一个数据包消耗的时间
+     *
+     * @param distance 传输距离
+     * @param speed    传输速度
+     */
+    public void add(double distance,
+                    int speed) {
+        hundredths.add(toHundredths(distance, speed));
+    }
+
+    /**
+     * @return 累加的时间（百分之一）
+     */
+    public long getHundredths() {
+        return hundredths.sum();
+    }
+
+    /**
+     * @return 累加的时间，保留两位小数
+     */
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(hundredths.sum());
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
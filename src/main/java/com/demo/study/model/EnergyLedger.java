@@ -0,0 +1,124 @@
+package com.demo.study.model;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 按节点ID记录所有节点的剩余能量
+ * 扣除能量使用原子的getAndAdd，扣除后低于下限则加回并返回失败，分路和并行的多轮路由扣除能量时不需要加锁；
+ * 统计剩余能量只需要对数组求和
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/14 19:30
+ */
+public final class EnergyLedger {
+    /**
+     * 每个节点的剩余能量，下标为节点ID
+     */
+    private final AtomicIntegerArray energies;
+
+    /**
+     * @param size 节点数量
+     */
+    public EnergyLedger(int size) {
+        energies = new AtomicIntegerArray(size);
+    }
+
+    /**
+     * 用节点当前的能量创建账本，节点ID必须小于节点数量
+     *
+     * @param nodes 空间中所有节点
+     * @return 能量账本
+     */
+    public static EnergyLedger of(List<Node> nodes) {
+        EnergyLedger ledger = new EnergyLedger(nodes.size());
+        for (Node node : nodes) {
+            ledger.set(node.getId(), node.getEnergy());
+        }
+        return ledger;
+    }
+
+    /**
+     * @param nodeId 节点ID
+     * @return 节点的剩余能量
+     */
+    public int get(int nodeId) {
+        return energies.get(nodeId);
+    }
+
+    /**
+     * @param nodeId 节点ID
+     * @param energy 节点的剩余能量
+     */
+    public void set(int nodeId,
+                    int energy) {
+        energies.set(nodeId, energy);
+    }
+
+    /**
+     * 扣除节点的能量，剩余能量不能小于0
+     *
+     * @param nodeId 节点ID
+     * @param energy 扣除的能量
+     * @return true：扣除成功；false：能量不足，没有扣除
+     */
+    public boolean debit(int nodeId,
+                         int energy) {
+        return debit(nodeId, energy, 0);
+    }
+
+    /**
+     * 扣除节点的能量，扣除后低于下限则加回。
+     * 加回之前其他线程可能读到低于下限的能量而扣除失败，只会少扣，不会扣到下限以下
+     *
+     * @param nodeId 节点ID
+     * @param energy 扣除的能量
+     * @param floor  剩余能量的下限
+     * @return true：扣除成功；false：能量不足，没有扣除
+     */
+    public boolean debit(int nodeId,
+                         int energy,
+                         int floor) {
+        int previous = energies.getAndAdd(nodeId, -energy);
+        if (previous - energy < floor) {
+            energies.getAndAdd(nodeId, energy);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 把所有节点的能量设置为相同的值
+     *
+     * @param energy 能量
+     */
+    public void reset(int energy) {
+        for (int i = 0, size = energies.length(); i < size; i++) {
+            energies.set(i, energy);
+        }
+    }
+
+    /**
+     * @return 所有节点的剩余能量之和
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0, size = energies.length(); i < size; i++) {
+            sum += energies.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * @return 节点数量
+     */
+    public int size() {
+        return energies.length();
+    }
+
+    @Override
+    public String toString() {
+        return energies.toString();
+    }
+}
@@ -0,0 +1,115 @@
+package com.demo.study.model;
+
+import com.google.common.collect.Maps;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 统计路由失败的原因和次数
+ * 以 {@link FailureReason} 的序号作为下标，每个原因一个LongAdder，记录时不装箱、不分配对象，
+ * 分路在不同线程同时失败时可以同时记录。并行的多次实验可以用 {@link #merge(FailureStatistics)} 合并
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/17 9:40
+ */
+public class FailureStatistics {
+    /**
+     * 所有失败原因
+     */
+    private static final FailureReason[] REASONS = FailureReason.values();
+    /**
+     * 每个失败原因的次数，以失败原因的序号作为下标
+     */
+    private final LongAdder[] counts = new LongAdder[REASONS.length];
+
+    public FailureStatistics() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一次失败
+     *
+     * @param reason 失败原因
+     */
+    public void record(FailureReason reason) {
+        counts[reason.ordinal()].increment();
+    }
+
+    /**
+     * @param reason 失败原因
+     * @return 这个原因的失败次数
+     */
+    public long get(FailureReason reason) {
+        return counts[reason.ordinal()].sum();
+    }
+
+    /**
+     * @return 所有原因的失败次数之和
+     */
+    public long total() {
+        long total = 0;
+        for (LongAdder count : counts) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    /**
+     * @return 是否没有记录过失败
+     */
+    public boolean isEmpty() {
+        return total() == 0;
+    }
+
+    /**
+     * 把另一组统计结果累加到当前统计结果中
+     *
+     * @param other 另一组统计结果
+     */
+    public void merge(FailureStatistics other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i].add(other.counts[i].sum());
+        }
+    }
+
+    /**
+     * 清空统计结果
+     */
+    public void reset() {
+        for (LongAdder count : counts) {
+            count.reset();
+        }
+    }
+
+    /**
+     * @return 出现过的失败原因和次数，按次数从多到少排列，次数相同时按失败原因的顺序排列
+     */
+    public LinkedHashMap<FailureReason, Long> toMap() {
+        LinkedHashMap<FailureReason, Long> map = Maps.newLinkedHashMap();
+        for (FailureReason reason : REASONS) {
+            long count = get(reason);
+            if (count > 0) {
+                map.put(reason, count);
+            }
+        }
+        return map.entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
+                .collect(Collectors.toMap(Map.Entry::getKey,
+                        Map.Entry::getValue,
+                        (oldValue, newValue) -> oldValue,
+                        LinkedHashMap::new));
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
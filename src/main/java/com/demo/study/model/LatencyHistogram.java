@@ -0,0 +1,228 @@
+package com.demo.study.model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按对数分桶的延迟直方图（HDR风格），用于统计延迟的分位数（p50、p99、p999）
+ * 小于2^precisionBits的值每个值一个桶；更大的值按2的幂分段，每段再均分成2^(precisionBits-1)个桶，
+ * 相对误差不超过 1/2^(precisionBits-1)。桶的数量固定，记录时只对一个桶计数，不保存数据本身，多个线程可以同时记录。
+ * 值的单位由调用方决定（例如时间的百分之一、纳秒）
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/17 14:10
+ */
+public class LatencyHistogram {
+    /**
+     * 默认的精度：每段（每个2的幂次区间）64个桶，相对误差不超过1/64
+     */
+    public static final int DEFAULT_PRECISION_BITS = 7;
+    /**
+     * 精度（位数）
+     */
+    private final int precisionBits;
+    /**
+     * 每段的桶数量
+     */
+    private final int halfCount;
+    /**
+     * 每个桶的计数
+     */
+    private final AtomicLongArray counts;
+    /**
+     * 记录的值的数量
+     */
+    private final LongAdder totalCount = new LongAdder();
+    /**
+     * 记录的值的和
+     */
+    private final LongAdder sum = new LongAdder();
+    /**
+     * 最小值
+     */
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    /**
+     * 最大值
+     */
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    public LatencyHistogram() {
+        this(DEFAULT_PRECISION_BITS);
+    }
+
+    /**
+     * @param precisionBits 精度（位数），1~16
+     */
+    public LatencyHistogram(int precisionBits) {
+        if (precisionBits < 1 || precisionBits > 16) {
+            throw new IllegalArgumentException("precisionBits: " + precisionBits);
+        }
+        this.precisionBits = precisionBits;
+        this.halfCount = 1 << (precisionBits - 1);
+        this.counts = new AtomicLongArray((64 - precisionBits + 2) * halfCount);
+    }
+
+    /**
+     * 记录一个值
+     *
+     * @param value 值，不能小于0
+     */
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value: " + value);
+        }
+        counts.incrementAndGet(indexOf(value));
+        totalCount.increment();
+        sum.add(value);
+        min.accumulate(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @param value 值
+     * @return 值所在的桶
+     */
+    private int indexOf(long value) {
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - (precisionBits - 1);
+        if (exponent <= 0) {
+            return (int) value;
+        }
+        return exponent * halfCount + (int) (value >>> exponent);
+    }
+
+    /**
+     * @param index 桶
+     * @return 桶里面最小的值
+     */
+    private long lowestValueOf(int index) {
+        if (index < 2 * halfCount) {
+            return index;
+        }
+        int exponent = index / halfCount - 1;
+        return (long) (index - exponent * halfCount) << exponent;
+    }
+
+    /**
+     * @param index 桶
+     * @return 桶里面最大的值
+     */
+    private long highestValueOf(int index) {
+        if (index < 2 * halfCount) {
+            return index;
+        }
+        int exponent = index / halfCount - 1;
+        return lowestValueOf(index) + (1L << exponent) - 1;
+    }
+
+    /**
+     * @param percentile 百分位（0~100）
+     * @return 不小于percentile%的值的最小值（所在桶里面最大的值，不超过记录过的最大值），没有数据时为0
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = totalCount.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+            if (count >= target) {
+                return Math.min(highestValueOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * 把另一个直方图的计数累加到当前直方图中，两个直方图的精度必须相同
+     *
+     * @param other 另一个直方图
+     */
+    public void merge(LatencyHistogram other) {
+        if (other.precisionBits != precisionBits) {
+            throw new IllegalArgumentException("precisionBits: " + other.precisionBits + " != " + precisionBits);
+        }
+        for (int i = 0; i < counts.length(); i++) {
+            long count = other.counts.get(i);
+            if (count > 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.add(other.totalCount.sum());
+        sum.add(other.sum.sum());
+        min.accumulate(other.min.get());
+        max.accumulate(other.max.get());
+    }
+
+    /**
+     * 清空直方图
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        sum.reset();
+        min.reset();
+        max.reset();
+    }
+
+    /**
+     * @return 记录的值的数量
+     */
+    public long getTotalCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * @return 平均值，没有数据时为0
+     */
+    public double getMean() {
+        long total = totalCount.sum();
+        return total == 0 ? 0 : (double) sum.sum() / total;
+    }
+
+    /**
+     * @return 最小值，没有数据时为0
+     */
+    public long getMin() {
+        return totalCount.sum() == 0 ? 0 : min.get();
+    }
+
+    /**
+     * @return 最大值，没有数据时为0
+     */
+    public long getMax() {
+        return totalCount.sum() == 0 ? 0 : max.get();
+    }
+
+    /**
+     * @return 中位数
+     */
+    public long getP50() {
+        return getValueAtPercentile(50);
+    }
+
+    /**
+     * @return 99分位数
+     */
+    public long getP99() {
+        return getValueAtPercentile(99);
+    }
+
+    /**
+     * @return 99.9分位数
+     */
+    public long getP999() {
+        return getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LatencyHistogram(count=%s, mean=%.2f, p50=%s, p99=%s, p999=%s, max=%s)",
+                getTotalCount(), getMean(), getP50(), getP99(), getP999(), getMax());
+    }
+}
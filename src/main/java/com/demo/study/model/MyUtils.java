@@ -7,6 +7,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
 
 /**
  * 工具类，提供常用的方法
@@ -17,13 +18,27 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class MyUtils {
     /**
-     * 用于生成随机数
+     * 在指定三维空间，生成指定数量节点，并初始化每个节点的信息
+     *
+     * @param x          x轴长度
+     * @param y          y轴长度
+     * @param z          z轴长度
+     * @param size       空间中的节点数量
+     * @param initEnergy 节点初始能量
+     * @return 节点集合
      */
-    public static final ThreadLocalRandom RANDOM = ThreadLocalRandom.current();
+    public static List<Node> generateNodes(int x,
+                                           int y,
+                                           int z,
+                                           int size,
+                                           int initEnergy) {
+        return generateNodes(new SplittableRandom(), x, y, z, size, initEnergy);
+    }
 
     /**
-     * 在指定三维空间，生成指定数量节点，并初始化每个节点的信息
+     * 用指定的随机数流生成节点，随机数流的种子相同时生成的节点相同
      *
+     * @param random     随机数流
      * @param x          x轴长度
      * @param y          y轴长度
      * @param z          z轴长度
@@ -31,7 +46,8 @@ public class MyUtils {
      * @param initEnergy 节点初始能量
      * @return 节点集合
      */
-    public static List<Node> generateNodes(int x,
+    public static List<Node> generateNodes(SplittableRandom random,
+                                           int x,
                                            int y,
                                            int z,
                                            int size,
@@ -43,30 +59,44 @@ public class MyUtils {
         // 用于保存所有节点的集合
         List<Node> nodes = Lists.newArrayListWithCapacity(size);
         // 生成源节点位置
-        Point sourcePoint = new Point(generateInt(0, x), generateInt(0, y), generateInt(0, 0));
+        Point sourcePoint = new Point(generateInt(random, 0, x), generateInt(random, 0, y), generateInt(random, 0, 0));
         // 初始化源节点，并把源节点放进集合
         nodes.add(initNode(0, sourcePoint, initEnergy));
         // 生成除源节点和目标节点外，剩余的其他节点
         for (int i = 1; i < size - 1; i++) {
             // 创建节点位置
-            Point point = new Point(generateInt(0, x), generateInt(0, y), generateInt(1, z - 1));
+            Point point = new Point(generateInt(random, 0, x), generateInt(random, 0, y), generateInt(random, 1, z - 1));
             // 初始化节点
             Node node = initNode(i, point, initEnergy);
             // 把节点放进集合
             nodes.add(node);
         }
         // 生成目标节点位置
-        Point destinationPoint = new Point(generateInt(0, x), generateInt(0, y), generateInt(z, z));
+        Point destinationPoint = new Point(generateInt(random, 0, x), generateInt(random, 0, y), generateInt(random, z, z));
         // 初始化目标节点，并把目标节点放进集合
         nodes.add(initNode(size - 1, destinationPoint, initEnergy));
         return nodes;
     }
 
     /**
-     * @param param
-     * @return
+     * 以源节点正上方等间距的主节点为中心，在每个主节点周围生成节点
+     *
+     * @param param 生成节点的配置
+     * @return 节点集合
      */
     public static List<Node> generateNodes2(GenerateConfig param) {
+        return generateNodes2(new SplittableRandom(), param);
+    }
+
+    /**
+     * 用指定的随机数流生成节点，随机数流的种子相同时生成的节点相同
+     *
+     * @param random 随机数流
+     * @param param  生成节点的配置
+     * @return 节点集合
+     */
+    public static List<Node> generateNodes2(SplittableRandom random,
+                                            GenerateConfig param) {
         //int majorNodeSize = param.getMajorNodeSize();
         if (param.getZ() % param.getGapDistance() != 0) {
             throw new IllegalArgumentException();
@@ -80,7 +110,7 @@ public class MyUtils {
         List<Node> nodes = Lists.newArrayListWithCapacity(totalNodeSize);
         List<Node> majorNodes = Lists.newArrayListWithCapacity(majorNodeSize - 2);
         // 生成源节点位置（xoy平面）
-        Point sourcePoint = new Point(generateInt(0, param.x), generateInt(0, param.y), generateInt(0, 0));
+        Point sourcePoint = new Point(generateInt(random, 0, param.x), generateInt(random, 0, param.y), generateInt(random, 0, 0));
         // 初始化源节点，并把源节点放进集合
         nodes.add(initNode(0, sourcePoint, param.initEnergy));
         for (int i = 1; i < majorNodeSize - 1; i++) {
@@ -96,9 +126,9 @@ public class MyUtils {
         for (Node majorNode : majorNodes) {
             for (int i = 0; i < aroundNodeSize; i++) {
                 Point point;
-                point = new Point(generateInt(majorNode.getPoint().getXAxis() - generateRadius, majorNode.getPoint().getXAxis() + generateRadius),
-                        generateInt(majorNode.getPoint().getYAxis() - generateRadius, majorNode.getPoint().getYAxis() + generateRadius),
-                        generateInt(i % 2 == 0 ?
+                point = new Point(generateInt(random, majorNode.getPoint().getXAxis() - generateRadius, majorNode.getPoint().getXAxis() + generateRadius),
+                        generateInt(random, majorNode.getPoint().getYAxis() - generateRadius, majorNode.getPoint().getYAxis() + generateRadius),
+                        generateInt(random, i % 2 == 0 ?
                                         majorNode.getPoint().getZAxis() : majorNode.getPoint().getZAxis() - generateRadius,
                                 i % 2 == 0 ?
                                         majorNode.getPoint().getZAxis() + generateRadius : majorNode.getPoint().getZAxis()));
@@ -117,6 +147,22 @@ public class MyUtils {
     }
 
     public static List<Node> enlarge(GenerateConfig param, List<Node> nodes, int increment) {
+        return enlarge(new SplittableRandom(), param, nodes, increment);
+    }
+
+    /**
+     * 用指定的随机数流在每个主节点周围增加节点，终点的ID改为最大的ID
+     *
+     * @param random    随机数流
+     * @param param     生成节点的配置
+     * @param nodes     空间中所有节点
+     * @param increment 每个主节点周围增加的节点数量
+     * @return 节点集合
+     */
+    public static List<Node> enlarge(SplittableRandom random,
+                                     GenerateConfig param,
+                                     List<Node> nodes,
+                                     int increment) {
         if (param.getZ() % param.getGapDistance() != 0) {
             throw new IllegalArgumentException();
         }
@@ -130,9 +176,9 @@ public class MyUtils {
             Node majorNode = nodes.get(i);
             for (int j = 0; j < increment; j++) {
                 Point point;
-                point = new Point(generateInt(majorNode.getPoint().getXAxis() - generateRadius, majorNode.getPoint().getXAxis() + generateRadius),
-                        generateInt(majorNode.getPoint().getYAxis() - generateRadius, majorNode.getPoint().getYAxis() + generateRadius),
-                        generateInt(j % 2 == 0 ?
+                point = new Point(generateInt(random, majorNode.getPoint().getXAxis() - generateRadius, majorNode.getPoint().getXAxis() + generateRadius),
+                        generateInt(random, majorNode.getPoint().getYAxis() - generateRadius, majorNode.getPoint().getYAxis() + generateRadius),
+                        generateInt(random, j % 2 == 0 ?
                                         majorNode.getPoint().getZAxis() : majorNode.getPoint().getZAxis() - generateRadius,
                                 j % 2 == 0 ?
                                         majorNode.getPoint().getZAxis() + generateRadius : majorNode.getPoint().getZAxis()));
@@ -183,7 +229,67 @@ public class MyUtils {
      */
     public static int generateInt(int min,
                                   int max) {
-        return RANDOM.nextInt(max - min + 1) + min;
+        return ThreadLocalRandom.current().nextInt(min, max + 1);
+    }
+
+    /**
+     * 用指定的随机数流生成指定范围的随机整数
+     *
+     * @param random 随机数流
+     * @param min    最小值
+     * @param max    最大值
+     * @return [min, max]
+     */
+    public static int generateInt(SplittableRandom random,
+                                  int min,
+                                  int max) {
+        return random.nextInt(min, max + 1);
+    }
+
+    /**
+     * 生成一轮路由的陷阱（路由路径中第几个节点、第几个数据包开始模拟故障）
+     *
+     * @param random     随机数流
+     * @param packetSize 数据包的数量
+     * @return 陷阱
+     */
+    public static Trap generateTrap(SplittableRandom random,
+                                    int packetSize) {
+        Trap trap = new Trap();
+        trap.setNodeSequence(generateInt(random, 3, 6));
+        trap.setPacketSequence(generateInt(random, 2, packetSize - 1));
+        return trap;
+    }
+
+    /**
+     * 生成每一轮路由的陷阱
+     *
+     * @param random     随机数流
+     * @param totalRound 模拟路由轮数
+     * @param packetSize 数据包的数量
+     * @return 每一轮的陷阱
+     */
+    public static List<Trap> generateTraps(SplittableRandom random,
+                                           int totalRound,
+                                           int packetSize) {
+        List<Trap> traps = Lists.newArrayListWithCapacity(totalRound);
+        for (int i = 0; i < totalRound; i++) {
+            traps.add(generateTrap(random, packetSize));
+        }
+        return traps;
+    }
+
+    /**
+     * 模拟时每轮生成这一轮的陷阱，不需要预先保存所有轮次的陷阱。
+     * 陷阱按调用顺序从随机数流中取值，按轮次顺序调用时与 {@link #generateTraps} 的结果一致
+     *
+     * @param random     随机数流，只能被一次模拟使用
+     * @param packetSize 数据包的数量
+     * @return 参数为轮次（从1开始），返回这一轮的陷阱
+     */
+    public static IntFunction<Trap> trapFactory(SplittableRandom random,
+                                                int packetSize) {
+        return round -> generateTrap(random, packetSize);
     }
 
     /**
@@ -202,29 +308,36 @@ public class MyUtils {
         if (flag != 0 && flag != 1 && flag != 2) {
             throw new RuntimeException();
         }
+        // 通信距离不大于0时不可能有邻居（邻居要求 0 < 距离 <= 通信距离）
+        if (transmissionDistance <= 0) {
+            return;
+        }
+        // 以通信距离为单元格边长建立网格索引，每个节点只需要检查周围27个单元格内的节点
+        SpatialGrid grid = SpatialGrid.of(nodes, transmissionDistance);
         // 遍历每个节点
         for (int i = 0, size = nodes.size(); i < size; i++) {
-            // 遍历每个节点
-            for (int j = 0; j < size; j++) {
+            Node node = nodes.get(i);
+            // 遍历周围单元格内的节点（下标升序，邻居集合中的顺序与逐个遍历所有节点时一致）
+            for (int j : grid.query(node.getPoint())) {
                 // 检查的节点是自己，跳过
                 if (i == j) {
                     continue;
                 }
                 // 测试能量、两点之间距离
                 if (nodes.get(j).getEnergy() >= minTransmissionEnergy
-                        && isNeighbor(nodes.get(i), nodes.get(j), transmissionDistance)) {
+                        && isNeighbor(node, nodes.get(j), transmissionDistance)) {
                     // 如果是光通信，把节点放进自己的光学邻居集合
                     if (flag == 0) {
-                        nodes.get(i).getOpticalNeighborNodes().add(nodes.get(j));
+                        node.getOpticalNeighborNodes().add(nodes.get(j));
                         continue;
                     }
                     if (flag == 1) {
                         // 如果是声通信，把节点放进自己的声学邻居集合
-                        nodes.get(i).getAcousticNeighborNodes().add(nodes.get(j));
+                        node.getAcousticNeighborNodes().add(nodes.get(j));
                         continue;
                     }
                     // 向下找时要用到的节点
-                    nodes.get(i).getContinueNodes().add(nodes.get(j));
+                    node.getContinueNodes().add(nodes.get(j));
                 }
             }
         }
@@ -301,6 +414,20 @@ public class MyUtils {
         double b = MyUtils.distance(currentNodePoint, destinationNodePoint);
         // 当前节点与候选节点的距离
         double c = MyUtils.distance(currentNodePoint, candidateNodePoint);
+        return cosine(a, b, c);
+    }
+
+    /**
+     * 用已经算好的三条边计算cosine值（余弦定理），不需要开方
+     *
+     * @param a 候选节点与目标节点的距离
+     * @param b 当前节点与目标节点的距离
+     * @param c 当前节点与候选节点的距离
+     * @return cosine值
+     */
+    public static double cosine(double a,
+                                double b,
+                                double c) {
         // 根据公式计算cosine值
         return (b * b + c * c - a * a) / (2 * b * c);
     }
@@ -340,15 +467,20 @@ public class MyUtils {
      * @return 数据内容
      */
     public static String decodeData(TreeMap<Integer, Packet> subPackets) {
-        List<Byte> bytes1 = Lists.newArrayList();
+        // 所有子包的数据加起来的字节数
+        int size = 0;
         for (Map.Entry<Integer, Packet> entry : subPackets.entrySet()) {
-            bytes1.addAll(entry.getValue().getData());
+            size += entry.getValue().getData().size();
         }
-        byte[] bytes2 = new byte[bytes1.size()];
-        for (int i = 0, size = bytes1.size(); i < size; i++) {
-            bytes2[i] = bytes1.get(i);
+        // 按序号把所有子包的数据复制到一个字节数组
+        byte[] bytes = new byte[size];
+        int position = 0;
+        for (Map.Entry<Integer, Packet> entry : subPackets.entrySet()) {
+            Payload data = entry.getValue().getData();
+            data.copyTo(bytes, position);
+            position += data.size();
         }
-        return new String(bytes2, StandardCharsets.UTF_8);
+        return new String(bytes, StandardCharsets.UTF_8);
     }
 
     /**
@@ -365,24 +497,27 @@ public class MyUtils {
                                                          int bytes) {
         // 创建原始数据包
         Packet packet = getPacket(sourceNode, destinationNode, data);
-        // 测试源节点的完整数据包缓冲区是否包含指定数据包ID的表
-        if (!sourceNode.getCompletePacketMapping().containsKey(packet.getId())) {
-            // 创建表
-            TreeMap<Integer, Packet> treeMap = Maps.newTreeMap();
-            // 在完整数据包缓冲区，关联指定数据包ID和表
-            sourceNode.getCompletePacketMapping().put(packet.getId(), treeMap);
+        // 测试源节点的完整数据包缓冲区是否包含指定数据包ID的重组过程
+        PacketAssembly assembly = sourceNode.getCompletePacketMapping().get(packet.getId());
+        if (Objects.isNull(assembly)) {
+            // 在完整数据包缓冲区，关联指定数据包ID和重组过程
+            assembly = new PacketAssembly(packet.getTotalBytes());
+            sourceNode.getCompletePacketMapping().put(packet.getId(), assembly);
+        } else if (assembly.isEmpty()) {
+            // 恢复节点后保留的空的重组过程，按数据包的总字节数重新开始
+            assembly.reset(packet.getTotalBytes());
         }
         // 把原始数据包拆分成多个数据包并保存
         List<Packet> subPackets = splitPacket(packet, bytes);
-        // 获取指定数据包在完整数据包缓冲区中关联的表
-        TreeMap<Integer, Packet> completePacketMapping = sourceNode.getCompletePacketMapping().get(packet.getId());
+        // 待发送的数据包，以包的序号作为查找索引
+        TreeMap<Integer, Packet> sendingPackets = Maps.newTreeMap();
         // 遍历原始数据包的所有子包
         for (Packet subPacket : subPackets) {
-            // 把当前子包放进完整数据包缓冲区中关联的表，以包的序号作为查找索引
-            completePacketMapping.put(subPacket.getSequence(), subPacket);
+            // 把当前子包放进完整数据包缓冲区
+            assembly.add(subPacket);
+            sendingPackets.put(subPacket.getSequence(), subPacket);
         }
-        // 返回在完整数据包缓冲区中关联的表
-        return completePacketMapping;
+        return sendingPackets;
     }
 
     /**
@@ -396,11 +531,8 @@ public class MyUtils {
     public static Packet getPacket(Node sourceNode,
                                    Node destinationNode,
                                    String data) {
-        // 用于保存文本数据转成字节数组后的字节数据
-        List<Byte> bytes = Lists.newArrayList();
-        for (byte item : data.getBytes(StandardCharsets.UTF_8)) {
-            bytes.add(item);
-        }
+        // 文本数据转成字节数组后的字节数据
+        Payload bytes = Payload.wrap(data.getBytes(StandardCharsets.UTF_8));
         // 创建数据包，填充数据包的各项属性，最后返回
         Packet packet = new Packet();
         packet.setId(String.format("%s:%s", sourceNode.getId(), sourceNode.getPacketIdGenerator().getAndIncrement()));
@@ -423,12 +555,13 @@ public class MyUtils {
         List<Packet> subPackets = Lists.newArrayList();
         // 测试原始数据包携带的数据大小是否超过阈值，如果是，则进行分包
         if (packet.getTotalBytes() > bytes) {
-            // 把原始数据包的数据分成多个部分
-            List<List<Byte>> dataPartitions = Lists.partition(packet.getData(), bytes);
+            // 原始数据包的数据
+            Payload data = packet.getData();
             // 数据包的初始序号
             int sequence = 1;
-            // 遍历原始数据的多个部分，分包创建不同的数据包存放每一部分数据，并把数据包放入集合
-            for (List<Byte> dataPartition : dataPartitions) {
+            // 把原始数据包的数据分成多个部分（与原始数据共享字节数组，不复制），分包创建不同的数据包存放每一部分数据，并把数据包放入集合
+            for (int from = 0, size = data.size(); from < size; from += bytes) {
+                Payload dataPartition = data.slice(from, Math.min(bytes, size - from));
                 Packet subPacket = new Packet();
                 subPacket.setId(packet.getId());
                 subPacket.setSourceNodeId(packet.getSourceNodeId());
@@ -447,7 +580,8 @@ public class MyUtils {
     }
 
     /**
-     * 重置所有节点的部分状态信息
+     * 重置所有节点的部分状态信息。
+     * 只需要恢复路由过程修改过的节点时使用 {@link NodeStates#restore()}
      *
      * @param nodes 空间中的所有节点
      */
@@ -463,18 +597,26 @@ public class MyUtils {
         }
     }
 
+    /**
+     * 每轮路由结束后重置所有节点的缓冲区和可用状态，能量保留。
+     * 只需要恢复本轮修改过的节点时使用 {@link NodeStates#restoreRound()}
+     *
+     * @param nodes 空间中的所有节点
+     */
     public static void resetNodes2(List<Node> nodes) {
-        // 遍历所有节点，重置部分信息
+        // 遍历所有节点，重置部分信息（与 NodeStates#restoreRound 一样保留重组过程的表项）
         for (Node node : nodes) {
             //node.setEnergy(CommonConfig.DEFAULT_ENERGY);
-            node.setAvailableFlag(true);
-            node.getReceivedPackets().clear();
-            node.getIncompletePacketMapping().clear();
-            node.getCompletePacketMapping().clear();
+            NodeStates.clear(node);
             //node.getPacketIdGenerator().set(1);
         }
     }
 
+    /**
+     * 重置所有节点的状态信息，包括邻里关系
+     *
+     * @param nodes 空间中的所有节点
+     */
     public static void resetNodes3(List<Node> nodes, int energy) {
         // 遍历所有节点，重置部分信息
         for (Node node : nodes) {
@@ -516,12 +658,8 @@ public class MyUtils {
         return countMap;
     }
 
-    public static void saveFailureReason(HashMap<FailureReason, Integer> failureReasons, FailureReason reason) {
-        if (failureReasons.containsKey(reason)) {
-            failureReasons.put(reason, failureReasons.get(reason) + 1);
-            return;
-        }
-        failureReasons.put(reason, 1);
+    public static void saveFailureReason(FailureStatistics failureReasons, FailureReason reason) {
+        failureReasons.record(reason);
     }
 
     public static int findFirstZero(List<Integer> routeResults, int consecutive) {
@@ -0,0 +1,102 @@
+package com.demo.study.model;
+
+import lombok.Getter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有名称的线程池，线程名称为“名称-序号”，记录被拒绝的任务数
+ * 队列满时拒绝任务（抛出RejectedExecutionException），与原来的线程池一致
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/13 20:18
+ */
+public class NamedThreadPoolExecutor extends ThreadPoolExecutor {
+    /**
+     * 线程池名称
+     */
+    @Getter
+    private final String name;
+    /**
+     * 被拒绝的任务数
+     */
+    private final LongAdder rejectedTasks;
+
+    /**
+     * @param name          线程池名称
+     * @param threads       线程数
+     * @param queueCapacity 等待队列的容量
+     */
+    public NamedThreadPoolExecutor(String name,
+                                   int threads,
+                                   int queueCapacity) {
+        this(name, threads, queueCapacity, new LongAdder());
+    }
+
+    private NamedThreadPoolExecutor(String name,
+                                    int threads,
+                                    int queueCapacity,
+                                    LongAdder rejectedTasks) {
+        super(threads,
+                threads,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                (runnable) -> new Thread(runnable, String.format("%s-%s", name, ThreadPoolConfig.THREAD_ID_GENERATOR.incrementAndGet())),
+                countingPolicy(rejectedTasks));
+        this.name = name;
+        this.rejectedTasks = rejectedTasks;
+    }
+
+    /**
+     * 先记录被拒绝的任务数，再按 {@link AbortPolicy} 拒绝任务
+     */
+    private static RejectedExecutionHandler countingPolicy(LongAdder rejectedTasks) {
+        RejectedExecutionHandler abortPolicy = new AbortPolicy();
+        return (runnable, executor) -> {
+            rejectedTasks.increment();
+            abortPolicy.rejectedExecution(runnable, executor);
+        };
+    }
+
+    /**
+     * 修改线程数
+     *
+     * @param threads 线程数
+     */
+    public void resize(int threads) {
+        // 先调大最大线程数再调核心线程数，或者先调小核心线程数再调最大线程数，保证核心线程数不超过最大线程数
+        if (threads >= getMaximumPoolSize()) {
+            setMaximumPoolSize(threads);
+            setCorePoolSize(threads);
+        } else {
+            setCorePoolSize(threads);
+            setMaximumPoolSize(threads);
+        }
+    }
+
+    /**
+     * @return 被拒绝的任务数
+     */
+    public long getRejectedTaskCount() {
+        return rejectedTasks.sum();
+    }
+
+    /**
+     * @return 线程池当前的运行情况
+     */
+    public PoolMetrics metrics() {
+        return new PoolMetrics(name,
+                getMaximumPoolSize(),
+                getActiveCount(),
+                getQueue().size(),
+                getCompletedTaskCount(),
+                0,
+                getRejectedTaskCount());
+    }
+}
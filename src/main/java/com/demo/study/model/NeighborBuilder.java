@@ -0,0 +1,324 @@
+package com.demo.study.model;
+
+import com.demo.study.model.algo.Algorithm;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 一次遍历同时建立光学邻居、声学邻居和向下找时要用到的节点（continueNodes）三种邻里关系
+ * 每一对节点只计算一次距离（用坐标差的平方和比较，不需要开方），再按三种通信距离分别放进对应的集合，
+ * 每个集合中节点的内容和顺序与分三次调用 {@link MyUtils#initNeighbouringNodesForAll} 的结果一致
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/4 15:20
+ */
+@Getter
+@ToString
+public class NeighborBuilder {
+    /**
+     * 并行建立时，一个任务负责的节点数不超过这个值就不再拆分
+     */
+    private static final int PARALLEL_THRESHOLD = 256;
+    /**
+     * 光通信距离
+     */
+    private final int opticalDistance;
+    /**
+     * 成为光学邻居所需的最小能量
+     */
+    private final int minOpticalEnergy;
+    /**
+     * 声通信距离
+     */
+    private final int acousticDistance;
+    /**
+     * 成为声学邻居所需的最小能量
+     */
+    private final int minAcousticEnergy;
+    /**
+     * 向下找时的距离
+     */
+    private final int continueDistance;
+    /**
+     * 成为向下找时要用到的节点所需的最小能量
+     */
+    private final int minContinueEnergy;
+    /**
+     * 最近一次建立邻里关系时使用的网格索引，节点数量增加时在此基础上增量更新
+     */
+    @ToString.Exclude
+    private SpatialGrid grid;
+
+    /**
+     * 按节点配置和路由算法初始化，向下找时的最小能量与算法类型对应（纯光算法用光通信能量，其他用声通信能量）
+     *
+     * @param config    节点配置
+     * @param algorithm 路由算法
+     */
+    public NeighborBuilder(NodeConfig config,
+                           Algorithm algorithm) {
+        this(config,
+                algorithm.getDownDistance(),
+                algorithm.getAlgoType() == AlgoType.OPTICAL.getAlgoType() ?
+                        config.getEnergyByOptical() : config.getEnergyByAcoustic());
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param config            节点配置
+     * @param continueDistance  向下找时的距离，不大于0时不建立continueNodes
+     * @param minContinueEnergy 成为向下找时要用到的节点所需的最小能量
+     */
+    public NeighborBuilder(NodeConfig config,
+                           int continueDistance,
+                           int minContinueEnergy) {
+        this.opticalDistance = config.getOpticalDistance();
+        this.minOpticalEnergy = config.getEnergyByOptical();
+        this.acousticDistance = config.getAcousticDistance();
+        this.minAcousticEnergy = config.getEnergyByAcoustic();
+        this.continueDistance = continueDistance;
+        this.minContinueEnergy = minContinueEnergy;
+    }
+
+    /**
+     * 建立空间中每个节点与周围节点的三种邻里关系
+     *
+     * @param nodes 空间中所有节点
+     */
+    public void build(List<Node> nodes) {
+        // 三种距离中最大的距离作为网格单元格的边长，不大于0说明不可能有邻居
+        int maxDistance = Math.max(opticalDistance, Math.max(acousticDistance, continueDistance));
+        if (maxDistance <= 0) {
+            return;
+        }
+        grid = SpatialGrid.of(nodes, maxDistance);
+        build(nodes, grid, 0, nodes.size());
+    }
+
+    /**
+     * 使用 {@link ThreadPoolConfig#topologyPool()} 并行建立三种邻里关系
+     *
+     * @param nodes 空间中所有节点
+     */
+    public void buildParallel(List<Node> nodes) {
+        buildParallel(nodes, ThreadPoolConfig.topologyPool());
+    }
+
+    /**
+     * 并行建立三种邻里关系：把节点下标范围拆分给分治线程池中的多个任务，
+     * 每个任务只往自己负责的节点的邻居集合里添加节点，所以不需要加锁，
+     * 并且每个集合中节点的顺序与 {@link #build(List)} 的结果一致
+     *
+     * @param nodes 空间中所有节点
+     * @param pool  分治线程池
+     */
+    public void buildParallel(List<Node> nodes,
+                              ForkJoinPool pool) {
+        int maxDistance = Math.max(opticalDistance, Math.max(acousticDistance, continueDistance));
+        if (maxDistance <= 0) {
+            return;
+        }
+        // 网格索引建立后只读，可以被多个任务同时查询
+        grid = SpatialGrid.of(nodes, maxDistance);
+        pool.invoke(new BuildTask(nodes, grid, 0, nodes.size()));
+    }
+
+    /**
+     * 在 {@link MyUtils#enlarge} 增加节点之后增量更新邻里关系，只处理新增的节点和它们附近的节点，
+     * 结果与重置所有邻居集合后重新调用 {@link #build(List)} 一致。
+     * enlarge会先移除目标节点，追加新节点，再以新的ID把目标节点放回集合末尾，
+     * 所以这里先把目标节点从附近节点的邻居集合中移除，等新节点都加入后再按新的顺序放回。
+     * 调用前节点能量应该已经重置（与建立邻里关系时的能量一致），例如先调用 {@link MyUtils#resetNodes}
+     *
+     * @param nodes        增加节点后的所有节点
+     * @param previousSize 增加节点前的节点数量
+     */
+    public void extend(List<Node> nodes,
+                       int previousSize) {
+        // 没有建立过邻里关系（或者不可能有邻居），或者没有新增节点
+        if (grid == null || nodes.size() <= previousSize) {
+            return;
+        }
+        int last = nodes.size() - 1;
+        // 原来目标节点的下标，也是第一个新增节点的下标
+        int firstNew = previousSize - 1;
+        Node destinationNode = nodes.get(last);
+
+        // 目标节点的下标变了，先从网格索引和附近节点的邻居集合中移除
+        grid.remove(firstNew, destinationNode.getPoint());
+        for (int j : grid.query(destinationNode.getPoint())) {
+            unlink(nodes.get(j), destinationNode);
+        }
+
+        // 新增节点和目标节点以新的下标放进网格索引
+        for (int i = firstNew; i <= last; i++) {
+            grid.insert(i, nodes.get(i).getPoint());
+        }
+
+        // 按下标升序处理新增节点：建立新节点自己的邻居集合，同时把新节点追加到原有节点（包括目标节点）的邻居集合末尾
+        for (int i = firstNew; i < last; i++) {
+            Node node = nodes.get(i);
+            for (int j : grid.query(node.getPoint())) {
+                if (i == j) {
+                    continue;
+                }
+                link(node, nodes.get(j));
+                if (j < firstNew || j == last) {
+                    link(nodes.get(j), node);
+                }
+            }
+        }
+
+        // 目标节点的ID最大，最后追加到附近原有节点的邻居集合末尾（新节点的邻居集合已经包含目标节点）
+        for (int j : grid.query(destinationNode.getPoint())) {
+            if (j < firstNew) {
+                link(nodes.get(j), destinationNode);
+            }
+        }
+    }
+
+    /**
+     * 建立下标在[from, to)范围内的节点的邻里关系
+     *
+     * @param nodes 空间中所有节点
+     * @param grid  网格索引
+     * @param from  起始下标（包含）
+     * @param to    结束下标（不包含）
+     */
+    private void build(List<Node> nodes,
+                       SpatialGrid grid,
+                       int from,
+                       int to) {
+        // 遍历每个节点
+        for (int i = from; i < to; i++) {
+            Node node = nodes.get(i);
+            // 遍历周围单元格内的节点（下标升序）
+            for (int j : grid.query(node.getPoint())) {
+                // 检查的节点是自己，跳过
+                if (i != j) {
+                    link(node, nodes.get(j));
+                }
+            }
+        }
+    }
+
+    /**
+     * 计算一次两个节点之间的距离，按三种通信距离把邻居放进对应的集合
+     *
+     * @param node     节点
+     * @param neighbor 可能的邻居
+     */
+    private void link(Node node,
+                      Node neighbor) {
+        long squared = squaredDistance(node.getPoint(), neighbor.getPoint());
+        // 位置重合的节点不是邻居
+        if (squared == 0) {
+            return;
+        }
+        int energy = neighbor.getEnergy();
+        // 光通信距离内
+        if (energy >= minOpticalEnergy && inRange(squared, opticalDistance)) {
+            node.getOpticalNeighborNodes().add(neighbor);
+        }
+        // 声通信距离内
+        if (energy >= minAcousticEnergy && inRange(squared, acousticDistance)) {
+            node.getAcousticNeighborNodes().add(neighbor);
+        }
+        // 向下找时的距离内
+        if (energy >= minContinueEnergy && inRange(squared, continueDistance)) {
+            node.getContinueNodes().add(neighbor);
+        }
+    }
+
+    /**
+     * 从节点的三种邻居集合中移除指定节点
+     *
+     * @param node     节点
+     * @param neighbor 要移除的邻居
+     */
+    private static void unlink(Node node,
+                               Node neighbor) {
+        removeNeighbor(node.getOpticalNeighborNodes(), neighbor);
+        removeNeighbor(node.getAcousticNeighborNodes(), neighbor);
+        removeNeighbor(node.getContinueNodes(), neighbor);
+    }
+
+    /**
+     * 从邻居集合中移除指定节点，要移除的节点通常在集合末尾
+     *
+     * @param neighbors 邻居集合
+     * @param neighbor  要移除的邻居
+     */
+    private static void removeNeighbor(List<Node> neighbors,
+                                       Node neighbor) {
+        for (int k = neighbors.size() - 1; k >= 0; k--) {
+            if (neighbors.get(k) == neighbor) {
+                neighbors.remove(k);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 距离的平方是否不超过通信距离的平方，与 {@link MyUtils#isNeighbor} 中开方后比较的结果一致
+     *
+     * @param squared              距离的平方
+     * @param transmissionDistance 通信距离
+     * @return true：在通信距离内；false：不在
+     */
+    private static boolean inRange(long squared,
+                                   int transmissionDistance) {
+        return transmissionDistance > 0 && squared <= (long) transmissionDistance * transmissionDistance;
+    }
+
+    /**
+     * 返回两个位置之间距离的平方
+     *
+     * @param point1 位置1
+     * @param point2 位置2
+     * @return 距离的平方
+     */
+    private static long squaredDistance(Point point1,
+                                        Point point2) {
+        long x = point2.getXAxis() - point1.getXAxis();
+        long y = point2.getYAxis() - point1.getYAxis();
+        long z = point2.getZAxis() - point1.getZAxis();
+        return x * x + y * y + z * z;
+    }
+
+    /**
+     * 并行建立邻里关系的任务，节点数超过阈值时对半拆分
+     */
+    private class BuildTask extends RecursiveAction {
+        private final List<Node> nodes;
+        private final SpatialGrid grid;
+        private final int from;
+        private final int to;
+
+        private BuildTask(List<Node> nodes,
+                          SpatialGrid grid,
+                          int from,
+                          int to) {
+            this.nodes = nodes;
+            this.grid = grid;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                build(nodes, grid, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BuildTask(nodes, grid, from, middle), new BuildTask(nodes, grid, middle, to));
+        }
+    }
+}
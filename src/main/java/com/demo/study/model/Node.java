@@ -48,15 +48,16 @@ public class Node {
      */
     private LinkedList<Packet> receivedPackets;
     /**
-     * 不完整数据包缓冲区：在处理接收缓冲区的数据包的时候，如果数据包是子包，则会把子包移动到这个缓冲区。
+     * 不完整数据包缓冲区：在处理接收缓冲区的数据包的时候，如果数据包是子包，则会把子包移动到这个缓冲区（按数据包ID记录重组过程）。
      * 这个缓冲区有容量上限，采用最近最少使用（LRU）算法管理缓冲区内的数据包，即最近最少被使用的数据包在缓冲区空间不足时，会被删除
      */
-    private LinkedHashMap<String, TreeMap<Integer, Packet>> incompletePacketMapping;
+    private LinkedHashMap<String, PacketAssembly> incompletePacketMapping;
     /**
      * 完整数据包缓冲区：在处理不完整数据包缓冲区的时候，如果同一个ID的多个数据包可以组成完整的数据包，
-     * 则把这些数据包移动到这个缓冲区。这个缓冲区和不完整数据包缓冲区一样采用相同的空间管理策略
+     * 则把这些数据包移动到这个缓冲区。这个缓冲区和不完整数据包缓冲区一样采用相同的空间管理策略。
+     * 两个缓冲区在节点恢复（{@link NodeStates}）时只清空重组过程、保留表项，空的重组过程表示没有这个数据包
      */
-    private LinkedHashMap<String, TreeMap<Integer, Packet>> completePacketMapping;
+    private LinkedHashMap<String, PacketAssembly> completePacketMapping;
     /**
      * 数据包ID生成器：用于生成由此节点产生并发出的数据包的ID，为了标识数据包ID的唯一性，数据包ID的内容
      * 通常包括节点ID，例如：节点ID假如是100，生成的ID是50，则完整的数据包ID是：100:50
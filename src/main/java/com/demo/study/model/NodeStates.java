@@ -0,0 +1,186 @@
+package com.demo.study.model;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 记录路由过程修改过的节点，只恢复这些节点的状态
+ * 创建时保存所有节点的能量和数据包ID生成器的快照；路由过程中发送端和接收端被标记为已修改（分路并发时也可以标记）。
+ * 每轮结束后 {@link #restoreRound()} 只清空本轮修改过的节点的缓冲区，耗时与路由路径的长度有关，与节点数量无关
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/15 10:40
+ */
+public final class NodeStates {
+    /**
+     * 空间中所有节点，下标为节点ID
+     */
+    private final List<Node> nodes;
+    /**
+     * 快照中每个节点的能量
+     */
+    private final int[] energies;
+    /**
+     * 快照中每个节点的数据包ID生成器的值
+     */
+    private final int[] packetIds;
+    /**
+     * 上一次 {@link #restoreRound()} 之后修改过的节点
+     */
+    private final DirtySet round;
+    /**
+     * 创建快照或上一次 {@link #restore()} 之后修改过的节点
+     */
+    private final DirtySet total;
+
+    private NodeStates(List<Node> nodes) {
+        this.nodes = nodes;
+        int size = nodes.size();
+        energies = new int[size];
+        packetIds = new int[size];
+        for (Node node : nodes) {
+            energies[node.getId()] = node.getEnergy();
+            packetIds[node.getId()] = node.getPacketIdGenerator().get();
+        }
+        round = new DirtySet(size);
+        total = new DirtySet(size);
+    }
+
+    /**
+     * 保存所有节点当前的能量和数据包ID生成器作为快照，节点ID必须与节点在集合中的下标一致
+     *
+     * @param nodes 空间中所有节点
+     * @return 节点状态
+     */
+    public static NodeStates of(List<Node> nodes) {
+        return new NodeStates(nodes);
+    }
+
+    /**
+     * 标记节点已修改
+     *
+     * @param node 节点
+     */
+    public void touch(Node node) {
+        int id = node.getId();
+        round.add(id);
+        total.add(id);
+    }
+
+    /**
+     * 恢复本轮修改过的节点：清空缓冲区（保留重组过程的表项和数组，见 {@link #clear(Node)}），设置为可用，能量保留（与 {@link MyUtils#resetNodes2} 一致）
+     *
+     * @return 恢复的节点数量
+     */
+    public int restoreRound() {
+        int size = round.size();
+        for (int i = 0; i < size; i++) {
+            clear(nodes.get(round.get(i)));
+        }
+        round.clear();
+        return size;
+    }
+
+    /**
+     * 把快照之后修改过的节点恢复到快照：清空缓冲区，设置为可用，恢复能量和数据包ID生成器
+     * （对修改过的节点与 {@link MyUtils#resetNodes} 一致）。
+     * 驱动程序在路由之外修改的节点（例如生成数据包的源节点）需要先调用 {@link #touch(Node)}
+     *
+     * @return 恢复的节点数量
+     */
+    public int restore() {
+        int size = total.size();
+        for (int i = 0; i < size; i++) {
+            int id = total.get(i);
+            Node node = nodes.get(id);
+            clear(node);
+            node.setEnergy(energies[id]);
+            node.getPacketIdGenerator().set(packetIds[id]);
+        }
+        total.clear();
+        round.clear();
+        return size;
+    }
+
+    /**
+     * @return 本轮修改过的节点数量
+     */
+    public int getRoundDirtyCount() {
+        return round.size();
+    }
+
+    /**
+     * 清空节点的缓冲区，设置为可用
+     *
+     * @param node 节点
+     */
+    static void clear(Node node) {
+        node.setAvailableFlag(true);
+        node.getReceivedPackets().clear();
+        clear(node.getIncompletePacketMapping());
+        clear(node.getCompletePacketMapping());
+    }
+
+    /**
+     * 只有一个数据包ID时清空重组过程、保留表项，下一轮收到同一个数据包时直接使用，不需要重新建表；
+     * 有多个数据包ID时删除所有表项，表项的数量不会随着模拟过的数据包ID增长
+     */
+    private static void clear(LinkedHashMap<String, PacketAssembly> packetMapping) {
+        if (packetMapping.size() > 1) {
+            packetMapping.clear();
+        } else if (!packetMapping.isEmpty()) {
+            packetMapping.values().forEach(PacketAssembly::clear);
+        }
+    }
+
+    /**
+     * 修改过的节点ID的集合，每个ID只保存一次。
+     * 标记数组判断是否已经保存，新的ID追加到ID数组末尾，遍历和清空只访问已保存的ID
+     */
+    private static final class DirtySet {
+        /**
+         * 每个节点是否已经保存，1：已保存
+         */
+        private final AtomicIntegerArray marks;
+        /**
+         * 已保存的节点ID
+         */
+        private final int[] ids;
+        /**
+         * 已保存的节点数量
+         */
+        private final AtomicInteger size = new AtomicInteger();
+
+        private DirtySet(int capacity) {
+            marks = new AtomicIntegerArray(capacity);
+            ids = new int[capacity];
+        }
+
+        private void add(int id) {
+            if (marks.get(id) == 0 && marks.compareAndSet(id, 0, 1)) {
+                ids[size.getAndIncrement()] = id;
+            }
+        }
+
+        /**
+         * 只在所有路由任务结束后调用，此时数组的写入对当前线程可见
+         */
+        private int size() {
+            return size.get();
+        }
+
+        private int get(int index) {
+            return ids[index];
+        }
+
+        private void clear() {
+            for (int i = 0, n = size.get(); i < n; i++) {
+                marks.set(ids[i], 0);
+            }
+            size.set(0);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.demo.study.model;
+
+/**
+ * 在线计算一组数的数量、平均值、方差、最小值和最大值（Welford算法），每加入一个数只更新几个变量，不保存数据本身。
+ * 不是线程安全的，并行统计时每个线程使用自己的实例，最后用 {@link #merge(OnlineStatistics)} 合并
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/16 15:20
+ */
+public class OnlineStatistics {
+    /**
+     * 数量
+     */
+    private long count;
+    /**
+     * 平均值
+     */
+    private double mean;
+    /**
+     * 与平均值的差的平方和
+     */
+    private double m2;
+    /**
+     * 最小值
+     */
+    private double min = Double.POSITIVE_INFINITY;
+    /**
+     * 最大值
+     */
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param value 加入的数
+     */
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * 合并另一组数的统计结果（Chan等人的并行算法）
+     *
+     * @param other 另一组数的统计结果
+     */
+    public void merge(OnlineStatistics other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            min = other.min;
+            max = other.max;
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * count * other.count / total;
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @return 数量
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return 平均值，没有数据时为0
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return 样本方差，少于两个数时为0
+     */
+    public double getVariance() {
+        return count < 2 ? 0 : m2 / (count - 1);
+    }
+
+    /**
+     * @return 样本标准差
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * @return 最小值，没有数据时为0
+     */
+    public double getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * @return 最大值，没有数据时为0
+     */
+    public double getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("OnlineStatistics(count=%s, mean=%.2f, stddev=%.2f, min=%.2f, max=%.2f)",
+                count, mean, getStandardDeviation(), getMin(), getMax());
+    }
+}
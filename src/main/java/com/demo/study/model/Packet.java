@@ -4,8 +4,6 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
-import java.util.List;
-
 /**
  * 描述数据包的信息
  *
@@ -40,9 +38,9 @@ public class Packet {
      */
     private int totalBytes;
     /**
-     * 当前数据包的数据
+     * 当前数据包的数据（不可修改，子包与原始数据包共享同一个字节数组）
      */
-    private List<Byte> data;
+    private Payload data;
     /**
      * 传输类型（0：光传输；1：声传输）
      */
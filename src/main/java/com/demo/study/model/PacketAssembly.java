@@ -0,0 +1,154 @@
+package com.demo.study.model;
+
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.TreeMap;
+
+/**
+ * 接收端重组一个数据包的过程：已收到的子包、已收到的子包序号（BitSet）和已收到的字节数
+ * 每收到一个子包只更新序号和字节数，判断是否收齐只需要比较字节数，不需要重新累加所有子包的大小。
+ * 子包按序号保存在数组中，清空（{@link #clear()}）后数组和BitSet继续使用，节点恢复后再次收到数据包时不需要重新分配
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/11 9:48
+ */
+public class PacketAssembly {
+    /**
+     * 完整数据包的数据的总字节数
+     */
+    private int totalBytes;
+    /**
+     * 已收到的子包，下标为包的序号
+     */
+    private Packet[] packets = new Packet[16];
+    /**
+     * 已收到的子包的序号
+     */
+    private final BitSet sequences = new BitSet();
+    /**
+     * 已收到的子包的数据加起来的字节数
+     */
+    private int receivedBytes;
+
+    /**
+     * @param totalBytes 完整数据包的数据的总字节数
+     */
+    public PacketAssembly(int totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * 清空后开始重组另一个数据包
+     *
+     * @param totalBytes 完整数据包的数据的总字节数
+     */
+    public void reset(int totalBytes) {
+        clear();
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * 保存收到的子包，同一个序号的子包重复收到时替换原来的子包，字节数不重复累加
+     *
+     * @param subPacket 子包
+     * @return true：所有子包已经收齐；false：没有收齐
+     */
+    public boolean add(Packet subPacket) {
+        int sequence = subPacket.getSequence();
+        if (sequences.get(sequence)) {
+            receivedBytes -= packets[sequence].getData().size();
+        } else {
+            if (sequence >= packets.length) {
+                packets = Arrays.copyOf(packets, Math.max(sequence + 1, packets.length << 1));
+            }
+            sequences.set(sequence);
+        }
+        packets[sequence] = subPacket;
+        receivedBytes += subPacket.getData().size();
+        return isComplete();
+    }
+
+    /**
+     * @param sequence 子包序号
+     * @return 是否已经收到这个序号的子包
+     */
+    public boolean contains(int sequence) {
+        return sequences.get(sequence);
+    }
+
+    /**
+     * @param sequence 子包序号
+     * @return 这个序号的子包，没有收到时为null
+     */
+    public Packet get(int sequence) {
+        return sequences.get(sequence) ? packets[sequence] : null;
+    }
+
+    /**
+     * 按序号遍历已收到的子包：for (int s = nextSequence(0); s >= 0; s = nextSequence(s + 1))
+     *
+     * @param from 开始查找的序号
+     * @return 不小于from的第一个已收到的序号，没有时返回-1
+     */
+    public int nextSequence(int from) {
+        return sequences.nextSetBit(from);
+    }
+
+    /**
+     * @return 是否一个子包都没有收到
+     */
+    public boolean isEmpty() {
+        return sequences.isEmpty();
+    }
+
+    /**
+     * @return 是否所有子包已经收齐
+     */
+    public boolean isComplete() {
+        return receivedBytes == totalBytes;
+    }
+
+    /**
+     * 清空已收到的子包，保留数组和BitSet
+     */
+    public void clear() {
+        for (int s = sequences.nextSetBit(0); s >= 0; s = sequences.nextSetBit(s + 1)) {
+            packets[s] = null;
+        }
+        sequences.clear();
+        receivedBytes = 0;
+    }
+
+    /**
+     * @return 已收到的子包的副本，以包的序号作为查找索引（每次调用新建表，路由过程中不使用）
+     */
+    public TreeMap<Integer, Packet> toPacketMap() {
+        TreeMap<Integer, Packet> packetMap = Maps.newTreeMap();
+        for (int s = nextSequence(0); s >= 0; s = nextSequence(s + 1)) {
+            packetMap.put(s, packets[s]);
+        }
+        return packetMap;
+    }
+
+    /**
+     * @return 已收到的子包的数据加起来的字节数
+     */
+    public int getReceivedBytes() {
+        return receivedBytes;
+    }
+
+    /**
+     * @return 完整数据包的数据的总字节数
+     */
+    public int getTotalBytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PacketAssembly(sequences=%s, receivedBytes=%s, totalBytes=%s)", sequences, receivedBytes, totalBytes);
+    }
+}
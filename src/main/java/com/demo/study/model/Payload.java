@@ -0,0 +1,144 @@
+package com.demo.study.model;
+
+import java.util.Arrays;
+
+/**
+ * 数据包携带的数据
+ * 数据保存在共享的字节数组中，每个数据包只记录自己的数据在数组中的起始位置和长度。
+ * 内容不可修改，所以分包时只需要创建新的片段，数据包在节点之间传递和复制时可以直接共享同一个对象
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/10 15:42
+ */
+public final class Payload {
+    /**
+     * 没有数据
+     */
+    public static final Payload EMPTY = new Payload(new byte[0], 0, 0);
+    /**
+     * 共享的字节数组
+     */
+    private final byte[] bytes;
+    /**
+     * 数据在数组中的起始位置
+     */
+    private final int offset;
+    /**
+     * 数据的字节数
+     */
+    private final int length;
+
+    private Payload(byte[] bytes,
+                    int offset,
+                    int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * 用字节数组创建数据，不复制数组，调用方之后不能再修改数组的内容
+     *
+     * @param bytes 字节数组
+     * @return 数据
+     */
+    public static Payload wrap(byte[] bytes) {
+        return new Payload(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 截取一段数据，与原来的数据共享字节数组
+     *
+     * @param from   起始位置（相对于当前数据）
+     * @param length 字节数
+     * @return 截取的数据
+     */
+    public Payload slice(int from,
+                         int length) {
+        if (from < 0 || length < 0 || from + length > this.length) {
+            throw new IndexOutOfBoundsException(String.format("from: %s, length: %s, size: %s", from, length, this.length));
+        }
+        if (from == 0 && length == this.length) {
+            return this;
+        }
+        return new Payload(bytes, offset + from, length);
+    }
+
+    /**
+     * @return 数据的字节数
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * @param index 位置
+     * @return 指定位置的字节
+     */
+    public byte get(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(String.format("index: %s, size: %s", index, length));
+        }
+        return bytes[offset + index];
+    }
+
+    /**
+     * 把数据复制到目标数组
+     *
+     * @param target   目标数组
+     * @param position 目标数组中的起始位置
+     */
+    public void copyTo(byte[] target,
+                       int position) {
+        System.arraycopy(bytes, offset, target, position, length);
+    }
+
+    /**
+     * @return 数据的副本
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOfRange(bytes, offset, offset + length);
+    }
+
+    /**
+     * @return 两段数据是否共享同一个字节数组
+     */
+    public boolean isSharedWith(Payload other) {
+        return bytes == other.bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Payload)) {
+            return false;
+        }
+        Payload other = (Payload) o;
+        if (length != other.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + i] != other.bytes[other.offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            result = 31 * result + bytes[i];
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toByteArray());
+    }
+}
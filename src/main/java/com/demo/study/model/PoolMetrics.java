@@ -0,0 +1,46 @@
+package com.demo.study.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 描述线程池某一时刻的运行情况
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/13 20:10
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class PoolMetrics {
+    /**
+     * 线程池名称
+     */
+    private final String name;
+    /**
+     * 线程数（分治线程池的并行度）
+     */
+    private final int threads;
+    /**
+     * 正在执行任务的线程数
+     */
+    private final int activeThreads;
+    /**
+     * 等待执行的任务数
+     */
+    private final long queueDepth;
+    /**
+     * 已完成的任务数，分治线程池不统计已完成的任务，为0
+     */
+    private final long completedTasks;
+    /**
+     * 工作线程窃取任务的次数，只有分治线程池统计，普通线程池为0
+     */
+    private final long stealCount;
+    /**
+     * 被拒绝的任务数
+     */
+    private final long rejectedTasks;
+}
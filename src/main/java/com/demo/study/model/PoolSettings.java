@@ -0,0 +1,26 @@
+package com.demo.study.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * 描述一个线程池的大小
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/13 20:02
+ */
+@Getter
+@Setter
+@ToString
+public class PoolSettings {
+    /**
+     * 线程数（分治线程池的并行度），不大于0时与CPU核数相同
+     */
+    private int threads;
+    /**
+     * 等待队列的容量，只对普通线程池有效，不大于0时使用默认容量
+     */
+    private int queueCapacity;
+}
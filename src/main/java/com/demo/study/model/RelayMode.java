@@ -0,0 +1,55 @@
+package com.demo.study.model;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 发送端故障后，接收端和接力端两路路由任务的执行方式
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/12 19:40
+ */
+@Slf4j
+@Getter
+public enum RelayMode {
+    /**
+     * 提交到 {@link ThreadPoolConfig#relayExecutor()}，当前线程等待两路任务完成（默认）
+     * 线程池的线程数有限，分路中再次发生故障（dangerousCount大于1）时，等待中的线程占满线程池，可能一直等待或者拒绝任务
+     */
+    THREAD_POOL("线程池"),
+    /**
+     * 在 {@link ThreadPoolConfig#relayPool()} 中以分治（fork/join）方式执行，等待分路的线程会执行分路任务，
+     * 分路中再次发生故障时不会占满线程池
+     */
+    FORK_JOIN("分治线程池"),
+    /**
+     * 每路任务一个虚拟线程，当前线程等待两路任务完成，等待中的虚拟线程不占用平台线程，
+     * 大量嵌套的分路也不会占满线程池。需要使用java21配置编译（mvn -Pjava21）并运行在JDK 21以上，
+     * 否则创建 {@link SimulationConfig} 时改用 {@link #THREAD_POOL}（见 {@link #supported(RelayMode)}）
+     */
+    VIRTUAL_THREAD("虚拟线程");
+
+    /**
+     * 说明
+     */
+    private final String description;
+
+    RelayMode(String description) {
+        this.description = description;
+    }
+
+    /**
+     * 当前环境不支持虚拟线程时，{@link #VIRTUAL_THREAD} 改用 {@link #THREAD_POOL} 并打印警告，避免路由到一半才发现不能分路
+     *
+     * @param relayMode 执行方式，可以为null（使用默认的 {@link #THREAD_POOL}）
+     * @return 当前环境可以使用的执行方式
+     */
+    public static RelayMode supported(RelayMode relayMode) {
+        if (relayMode == VIRTUAL_THREAD && !ThreadPoolConfig.isVirtualThreadSupported()) {
+            log.warn("当前环境不支持虚拟线程（需要java21配置编译并运行在JDK 21以上），分路传送改用{}", THREAD_POOL.getDescription());
+            return THREAD_POOL;
+        }
+        return relayMode;
+    }
+}
@@ -0,0 +1,63 @@
+package com.demo.study.model;
+
+import com.demo.study.model.algo.Algorithm;
+import com.google.common.collect.Lists;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * 描述一次蒙特卡洛重复实验：路由算法、扫描点（第几次模拟）、是否开启分路传送，以及实验所用节点的模板。
+ * 每次实验在模板的副本上进行，不同实验之间不共享节点状态，可以并行执行
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/14 15:10
+ */
+@Getter
+@Builder
+@ToString(exclude = {"random", "template", "neighborBuilderFactory"})
+public class Replica {
+    /**
+     * 路由算法
+     */
+    private final Algorithm algorithm;
+    /**
+     * 扫描点（第几次模拟），从0开始
+     */
+    private final int sweepPoint;
+    /**
+     * 是否开启分路传送
+     */
+    private final boolean enableRelayFlag;
+    /**
+     * 这次实验独占的随机数流，由根随机数流按固定顺序split得到，种子相同时实验结果可以复现
+     */
+    private final SplittableRandom random;
+    /**
+     * 节点模板，只读取ID、位置和能量，实验过程中不能修改
+     */
+    private final List<Node> template;
+    /**
+     * 为副本建立邻里关系的构建器，每个副本使用新的构建器（构建器保存了空间网格，不能在线程之间共享）
+     */
+    private final Supplier<NeighborBuilder> neighborBuilderFactory;
+
+    /**
+     * 复制节点模板（ID、位置和能量相同），并建立邻里关系
+     *
+     * @return 这次实验独占的节点
+     */
+    public List<Node> isolate() {
+        List<Node> nodes = Lists.newArrayListWithCapacity(template.size());
+        for (Node node : template) {
+            nodes.add(MyUtils.initNode(node.getId(), node.getPoint(), node.getEnergy()));
+        }
+        neighborBuilderFactory.get().build(nodes);
+        return nodes;
+    }
+}
@@ -0,0 +1,77 @@
+package com.demo.study.model;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+
+/**
+ * 并行执行蒙特卡洛重复实验，每次实验（算法、扫描点、是否分路传送）在自己的节点副本上进行
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/14 15:32
+ */
+public class ReplicaRunner {
+    /**
+     * 执行实验的线程池
+     */
+    private final Executor executor;
+
+    /**
+     * 使用 {@link ThreadPoolConfig#replicaExecutor()} 执行实验
+     */
+    public ReplicaRunner() {
+        this(ThreadPoolConfig.replicaExecutor());
+    }
+
+    /**
+     * @param executor 执行实验的线程池
+     */
+    public ReplicaRunner(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 并行执行所有实验，等待所有实验完成。
+     * 线程池的队列已满时，在当前线程中执行实验
+     *
+     * @param replicas   实验
+     * @param experiment 实验过程，参数为实验和实验独占的节点（{@link Replica#isolate()}）
+     * @param <R>        实验结果的类型
+     * @return 实验结果，顺序与replicas一致
+     */
+    public <R> List<R> run(List<Replica> replicas,
+                           BiFunction<Replica, List<Node>, R> experiment) {
+        List<CompletableFuture<R>> futures = Lists.newArrayListWithCapacity(replicas.size());
+        for (Replica replica : replicas) {
+            CompletableFuture<R> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> experiment.apply(replica, replica.isolate()), executor);
+            } catch (RejectedExecutionException e) {
+                future = CompletableFuture.completedFuture(experiment.apply(replica, replica.isolate()));
+            }
+            futures.add(future);
+        }
+
+        List<R> results = Lists.newArrayListWithCapacity(replicas.size());
+        try {
+            for (CompletableFuture<R> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+        return results;
+    }
+}
@@ -0,0 +1,266 @@
+package com.demo.study.model;
+
+import com.google.common.collect.Lists;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * 逐轮累计路由结果：每轮只更新当前统计窗口的计数和整体的在线统计（{@link OnlineStatistics}），
+ * 每满一个窗口把窗口的平均值追加到序列中，不保存每一轮的结果。
+ * 内存只与窗口数量有关，与总轮数无关。窗口的平均值只计算成功的轮次，与按轮保存结果后再分段计算的值一致
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/16 15:40
+ */
+public class RoundStatistics {
+    /**
+     * 每多少轮统计一次
+     */
+    private final int window;
+    /**
+     * 已经累计的轮数
+     */
+    private int rounds;
+    /**
+     * 路由成功次数
+     */
+    private int successCount;
+    /**
+     * 最后一次路由成功的轮次，从1开始，没有成功过时为0
+     */
+    private int lastSuccessRound;
+
+    /**
+     * 当前窗口的成功次数
+     */
+    private int windowSuccess;
+    /**
+     * 当前窗口成功的轮次消耗的时间（百分之一）
+     */
+    private long windowHundredths;
+    /**
+     * 当前窗口成功的轮次消耗的能量
+     */
+    private long windowEnergy;
+    /**
+     * 当前窗口成功的轮次的跳数
+     */
+    private long windowHop;
+
+    /**
+     * 每个窗口的投递成功次数
+     */
+    private final List<Integer> windowPdrs = Lists.newArrayList();
+    /**
+     * 每个窗口的平均时间消耗
+     */
+    private final List<BigDecimal> windowConsumeTimes = Lists.newArrayList();
+    /**
+     * 每个窗口的平均能量消耗
+     */
+    private final List<Integer> windowConsumeEnergies = Lists.newArrayList();
+    /**
+     * 每个窗口的平均路由跳数
+     */
+    private final List<Integer> windowHops = Lists.newArrayList();
+
+    /**
+     * 成功的轮次消耗的时间
+     */
+    private final OnlineStatistics delay = new OnlineStatistics();
+    /**
+     * 成功的轮次消耗的能量
+     */
+    private final OnlineStatistics energy = new OnlineStatistics();
+    /**
+     * 成功的轮次的跳数
+     */
+    private final OnlineStatistics hop = new OnlineStatistics();
+
+    /**
+     * @param window 每多少轮统计一次
+     */
+    public RoundStatistics(int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window: " + window);
+        }
+        this.window = window;
+    }
+
+    /**
+     * 累计一轮路由的结果
+     *
+     * @param success    是否路由成功
+     * @param hundredths 消耗的时间（百分之一），失败时忽略
+     * @param energy     消耗的能量，失败时忽略
+     * @param hops       跳数，失败时忽略
+     * @return 这一轮是否正好结束一个窗口
+     */
+    public boolean add(boolean success,
+                       long hundredths,
+                       int energy,
+                       int hops) {
+        rounds++;
+        if (success) {
+            successCount++;
+            lastSuccessRound = rounds;
+            windowSuccess++;
+            windowHundredths += hundredths;
+            windowEnergy += energy;
+            windowHop += hops;
+            // 与 DelayAccumulator.toBigDecimal(hundredths).doubleValue() 相同（都是最接近的double），不需要创建BigDecimal
+            delay.add(hundredths / 100.0);
+            this.energy.add(energy);
+            hop.add(hops);
+        }
+        if (rounds % window != 0) {
+            return false;
+        }
+
+        windowPdrs.add(windowSuccess);
+        if (windowSuccess == 0) {
+            windowConsumeTimes.add(BigDecimal.ZERO);
+            windowConsumeEnergies.add(0);
+            windowHops.add(0);
+        } else {
+            windowConsumeTimes.add(DelayAccumulator.toBigDecimal(windowHundredths)
+                    .divide(BigDecimal.valueOf(windowSuccess), DelayAccumulator.SCALE, RoundingMode.HALF_UP));
+            windowConsumeEnergies.add((int) (windowEnergy / windowSuccess));
+            windowHops.add((int) (windowHop / windowSuccess));
+        }
+        windowSuccess = 0;
+        windowHundredths = 0;
+        windowEnergy = 0;
+        windowHop = 0;
+        return true;
+    }
+
+    /**
+     * @return 每多少轮统计一次
+     */
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * @return 已经累计的轮数
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * @return 路由成功次数
+     */
+    public int getSuccessCount() {
+        return successCount;
+    }
+
+    /**
+     * @return 路由失败次数
+     */
+    public int getFailCount() {
+        return rounds - successCount;
+    }
+
+    /**
+     * @return 最后一次路由成功的轮次，从1开始，没有成功过时为0
+     */
+    public int getLastSuccessRound() {
+        return lastSuccessRound;
+    }
+
+    /**
+     * @return 每个窗口的投递成功次数
+     */
+    public List<Integer> getWindowPdrs() {
+        return windowPdrs;
+    }
+
+    /**
+     * @return 每个窗口的平均时间消耗，窗口内没有成功的轮次时为0
+     */
+    public List<BigDecimal> getWindowConsumeTimes() {
+        return windowConsumeTimes;
+    }
+
+    /**
+     * @return 每个窗口的平均能量消耗，窗口内没有成功的轮次时为0
+     */
+    public List<Integer> getWindowConsumeEnergies() {
+        return windowConsumeEnergies;
+    }
+
+    /**
+     * @return 每个窗口的平均路由跳数，窗口内没有成功的轮次时为0
+     */
+    public List<Integer> getWindowHops() {
+        return windowHops;
+    }
+
+    /**
+     * @return 成功的轮次消耗的时间
+     */
+    public OnlineStatistics getDelay() {
+        return delay;
+    }
+
+    /**
+     * @return 成功的轮次消耗的能量
+     */
+    public OnlineStatistics getEnergy() {
+        return energy;
+    }
+
+    /**
+     * @return 成功的轮次的跳数
+     */
+    public OnlineStatistics getHop() {
+        return hop;
+    }
+
+    /**
+     * @return 每个窗口的平均投递成功次数的平均值
+     */
+    public int getAveragePdr() {
+        return average(windowPdrs);
+    }
+
+    /**
+     * @return 每个窗口的平均时间消耗的平均值
+     */
+    public BigDecimal getAverageEnd2EndDelay() {
+        if (windowConsumeTimes.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal consumeTime : windowConsumeTimes) {
+            total = total.add(consumeTime);
+        }
+        return total.divide(BigDecimal.valueOf(windowConsumeTimes.size()), DelayAccumulator.SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * @param values 一组整数
+     * @return 整数平均值，没有数据时为0
+     */
+    public static int average(List<Integer> values) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        long sum = 0;
+        for (Integer value : values) {
+            sum += value;
+        }
+        return (int) (sum / values.size());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RoundStatistics(rounds=%s, successCount=%s, lastSuccessRound=%s, delay=%s, energy=%s, hop=%s)",
+                rounds, successCount, lastSuccessRound, delay, energy, hop);
+    }
+}
@@ -7,6 +7,7 @@ import lombok.*;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.TreeMap;
+import java.util.function.IntFunction;
 
 /**
  * @author Tongyu Wu
@@ -33,7 +34,8 @@ public class SimulateRouteConfig {
     private SimulationConfig simulationConfig;
     private String data;
     private TreeMap<Integer, Packet> sendingPackets;
-    private List<Trap> traps;
+    // 按轮次（从1开始）生成每一轮的陷阱，每轮调用一次
+    private IntFunction<Trap> trapFactory;
     private List<List<Integer>> pdrResults;
     private int totalEnergy;
     private List<List<Integer>> residualEnergyPercentResults;
@@ -1,13 +1,14 @@
 package com.demo.study.model;
 
 import com.demo.study.model.algo.Algorithm;
+import com.google.common.collect.Lists;
 import lombok.*;
 
-import java.math.BigDecimal;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Objects;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 模拟路由过程需要设置的一些变量
@@ -18,7 +19,7 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Getter
 @Setter
 @ToString
@@ -31,6 +32,10 @@ public class SimulationConfig {
      * 分布在水下空间不同位置的节点集合
      */
     private List<Node> nodes;
+    /**
+     * 网络拓扑（邻接表），没有设置时在路由开始时按节点的邻居集合生成
+     */
+    private Topology topology;
     /**
      *
      */
@@ -39,6 +44,16 @@ public class SimulationConfig {
      * 路由过程经过的节点的ID集合
      */
     private List<Integer> routingPath;
+    /**
+     * 表示是否只用线程内复用的int数组记录路由路径（true：开启；false：关闭）
+     * true：开启后，不再写入routingPath、routingPaths和routeNodes，每个分路结束时把经过的节点数累加到hopCount，路由过程中每一跳不创建候选节点和路径对象（接收端缓冲区仍按数据包ID建表）
+     * false：关闭后，与原来一样把经过的节点写入routingPath和routeNodes
+     */
+    private boolean primitivePathFlag;
+    /**
+     * primitivePathFlag为true时，所有分路经过的节点数量之和（与所有routingPath的大小之和一致）
+     */
+    private AtomicInteger hopCount;
     /**
      * 发送端要给接收端发送的所有数据包
      */
@@ -49,6 +64,11 @@ public class SimulationConfig {
      * false：关闭后，发送端发送数据过程中发生故障的时候，直接路由失败
      */
     private boolean enableRelayFlag;
+    /**
+     * 分路传送时两路路由任务的执行方式，没有设置时使用 {@link RelayMode#THREAD_POOL}；
+     * 设置时检查当前环境是否支持（见 {@link RelayMode#supported(RelayMode)}）
+     */
+    private RelayMode relayMode;
     /**
      * 保存路由过程的所有路径
      */
@@ -62,20 +82,68 @@ public class SimulationConfig {
      */
     private AtomicInteger unavailableLatch;
     /**
-     *
+     * 路由过程（包括所有分路）传输数据包消耗的时间
      */
-    private List<BigDecimal> consumeTimes;
+    private DelayAccumulator consumeTime;
     /**
-     *
+     * 路由过程（包括所有分路）传输数据包消耗的能量，分路并发发送数据包时可以同时累加
      */
-    private List<Integer> consumeEnergies;
+    private LongAdder consumeEnergy;
     /**
-     *
+     * 每跳传输一个数据包消耗的时间（百分之一），分路之间共享。没有设置时不记录
+     */
+    private LatencyHistogram hopLatency;
+    /**
+     * 所有节点的剩余能量，分路之间共享。没有设置时直接读写节点的能量（需要在发送数据包的锁内修改）；
+     * 设置后路由过程只读写账本，节点的能量不再变化
      */
-    private HashMap<FailureReason, Integer> failureReasons;
+    private EnergyLedger energyLedger;
+    /**
+     * 记录路由过程修改过的节点，分路之间共享。没有设置时不记录，每轮结束后需要重置所有节点
+     */
+    private NodeStates nodeStates;
+    /**
+     * 路由失败的原因和次数，分路共享
+     */
+    private FailureStatistics failureReasons;
     private Trap trap;
     private boolean dangerousFlag = false;
     private int dangerousDistance;
     private int dangerousCount;
     private List<Node> routeNodes;
-}
\ No newline at end of file
+
+    public void setRelayMode(RelayMode relayMode) {
+        this.relayMode = RelayMode.supported(relayMode);
+    }
+
+    /**
+     * 创建分路的配置，只复制引用，不复制节点集合（O(1)）
+     * 分路之间共享（只读或线程安全）：algorithm、nodes、topology、config、primitivePathFlag、hopCount、enableRelayFlag、relayMode、
+     * unavailableInfo、consumeTime、consumeEnergy、hopLatency、energyLedger、nodeStates、failureReasons、trap、dangerousDistance；
+     * 每个分路独立：subPacketMapping、routingPath（primitivePathFlag为false时新建）、unavailableLatch（分路不再模拟陷阱）、
+     * dangerousFlag和dangerousCount（从当前配置继承）、routeNodes（路由开始时新建）；
+     * routingPaths不是线程安全的集合，分路使用各自的副本
+     *
+     * @param subPacketMapping 分路要发送的数据包
+     * @return 分路的配置
+     */
+    public SimulationConfig fork(TreeMap<Integer, Packet> subPacketMapping) {
+        return toBuilder()
+                .subPacketMapping(subPacketMapping)
+                .routingPath(primitivePathFlag ? null : Lists.newArrayList())
+                .unavailableLatch(null)
+                .routeNodes(null)
+                .routingPaths(Objects.isNull(routingPaths) ? null : Lists.newArrayList(routingPaths))
+                .build();
+    }
+
+    /**
+     * 创建配置时检查分路传送的执行方式，其余方法由lombok生成
+     */
+    public static class SimulationConfigBuilder {
+        public SimulationConfigBuilder relayMode(RelayMode relayMode) {
+            this.relayMode = RelayMode.supported(relayMode);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.demo.study.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * 一次模拟（totalRound轮路由）的结果，每{@link #getWindow()}轮统计一次
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/16 10:05
+ */
+@Getter
+@Builder
+@ToString
+public class SimulationResult {
+    /**
+     * 路由算法的名称
+     */
+    private final String algoName;
+    /**
+     * 是否开启分路传送
+     */
+    private final boolean enableRelayFlag;
+    /**
+     * 节点数量
+     */
+    private final int nodeSize;
+    /**
+     * 总模拟轮数
+     */
+    private final int totalRound;
+    /**
+     * 每多少轮统计一次
+     */
+    private final int window;
+    /**
+     * 路由成功次数
+     */
+    private final int successCount;
+    /**
+     * 路由失败次数
+     */
+    private final int failCount;
+    /**
+     * 每window轮的投递成功次数
+     */
+    private final List<Integer> windowPdrs;
+    /**
+     * 每window轮的平均时间消耗（只计算成功的轮次）
+     */
+    private final List<BigDecimal> windowConsumeTimes;
+    /**
+     * 每window轮的平均能量消耗（只计算成功的轮次）
+     */
+    private final List<Integer> windowConsumeEnergies;
+    /**
+     * 每window轮结束时的剩余能量占比（%）
+     */
+    private final List<Integer> residualEnergyPercents;
+    /**
+     * 每window轮的平均路由跳数（只计算成功的轮次）
+     */
+    private final List<Integer> windowHops;
+    /**
+     * 成功的轮次消耗的时间
+     */
+    private final OnlineStatistics delay;
+    /**
+     * 成功的轮次消耗的能量
+     */
+    private final OnlineStatistics energy;
+    /**
+     * 成功的轮次的跳数
+     */
+    private final OnlineStatistics hop;
+    /**
+     * 成功的轮次的端到端延迟（百分之一）的分布
+     */
+    private final LatencyHistogram delayHistogram;
+    /**
+     * 每跳传输时间（百分之一）的分布
+     */
+    private final LatencyHistogram hopHistogram;
+    /**
+     * 每轮执行路由算法实际消耗的时间（纳秒）的分布
+     */
+    private final LatencyHistogram routeHistogram;
+    /**
+     * 平均包投递率
+     */
+    private final int averagePdr;
+    /**
+     * 平均端到端延迟
+     */
+    private final BigDecimal averageEnd2EndDelay;
+    /**
+     * 平均剩余能量占比（%）
+     */
+    private final int averageResidualEnergyPercent;
+    /**
+     * 网络生命周期：最后一次路由成功的轮次
+     */
+    private final int lifetime;
+    /**
+     * 遇到故障节点次数
+     */
+    private final int encountered;
+    /**
+     * 遇到故障节点后幸存的次数
+     */
+    private final int survived;
+    /**
+     * 失败原因和次数，按次数从多到少排列
+     */
+    private final LinkedHashMap<FailureReason, Long> failureReasons;
+}
@@ -0,0 +1,179 @@
+package com.demo.study.model;
+
+import com.google.common.collect.Maps;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 三维均匀网格空间索引
+ * 把水下空间按通信距离切分成边长相同的立方体单元格，每个节点按位置落入一个单元格。
+ * 因为单元格边长不小于通信距离，所以一个节点的所有邻居一定在它所在单元格及周围的27个单元格内，
+ * 查询邻居时不需要再遍历空间中的所有节点
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/3 10:12
+ */
+public class SpatialGrid {
+    /**
+     * 单元格边长
+     */
+    @Getter
+    private final int cellSize;
+    /**
+     * 单元格表，key：单元格坐标压缩后的值，value：落在单元格内的节点下标
+     */
+    private final HashMap<Long, Cell> cells = Maps.newHashMap();
+
+    /**
+     * 构造方法
+     *
+     * @param cellSize 单元格边长，通常取通信距离
+     */
+    public SpatialGrid(int cellSize) {
+        // 边长必须大于0
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * 为指定的节点集合建立网格索引，节点在集合中的下标作为索引值
+     *
+     * @param nodes    空间中所有节点
+     * @param cellSize 单元格边长
+     * @return 网格索引
+     */
+    public static SpatialGrid of(List<Node> nodes,
+                                 int cellSize) {
+        SpatialGrid grid = new SpatialGrid(cellSize);
+        for (int i = 0, size = nodes.size(); i < size; i++) {
+            grid.insert(i, nodes.get(i).getPoint());
+        }
+        return grid;
+    }
+
+    /**
+     * 把节点下标放进位置所在的单元格
+     *
+     * @param index 节点下标
+     * @param point 节点位置
+     */
+    public void insert(int index,
+                       Point point) {
+        long key = key(cell(point.getXAxis()), cell(point.getYAxis()), cell(point.getZAxis()));
+        cells.computeIfAbsent(key, k -> new Cell()).add(index);
+    }
+
+    /**
+     * 从位置所在的单元格删除节点下标
+     *
+     * @param index 节点下标
+     * @param point 节点位置
+     * @return true：删除成功；false：单元格内没有这个下标
+     */
+    public boolean remove(int index,
+                          Point point) {
+        long key = key(cell(point.getXAxis()), cell(point.getYAxis()), cell(point.getZAxis()));
+        Cell cell = cells.get(key);
+        if (cell == null || !cell.remove(index)) {
+            return false;
+        }
+        // 单元格空了就删除，避免空单元格越积越多
+        if (cell.size == 0) {
+            cells.remove(key);
+        }
+        return true;
+    }
+
+    /**
+     * 返回指定位置所在单元格及周围26个单元格内的所有节点下标（升序）
+     * 结果只是候选，调用方仍需要按实际距离过滤
+     *
+     * @param point 查询位置
+     * @return 候选节点下标，按升序排列，与逐个遍历节点集合时的顺序一致
+     */
+    public int[] query(Point point) {
+        int cx = cell(point.getXAxis());
+        int cy = cell(point.getYAxis());
+        int cz = cell(point.getZAxis());
+        // 先找出周围的非空单元格，统计候选数量
+        Cell[] around = new Cell[27];
+        int total = 0;
+        int count = 0;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    Cell cell = cells.get(key(cx + dx, cy + dy, cz + dz));
+                    if (cell != null) {
+                        around[count++] = cell;
+                        total += cell.size;
+                    }
+                }
+            }
+        }
+        // 合并单元格内的下标并排序
+        int[] candidates = new int[total];
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(around[i].indexes, 0, candidates, offset, around[i].size);
+            offset += around[i].size;
+        }
+        Arrays.sort(candidates);
+        return candidates;
+    }
+
+    /**
+     * 计算坐标所在的单元格坐标
+     *
+     * @param axis 坐标值
+     * @return 单元格坐标
+     */
+    private int cell(int axis) {
+        return Math.floorDiv(axis, cellSize);
+    }
+
+    /**
+     * 把单元格的三维坐标压缩成一个long值（每个坐标占21位，允许负数）
+     *
+     * @param cx x轴单元格坐标
+     * @param cy y轴单元格坐标
+     * @param cz z轴单元格坐标
+     * @return 压缩后的值
+     */
+    private static long key(int cx,
+                            int cy,
+                            int cz) {
+        return ((cx & 0x1FFFFFL) << 42) | ((cy & 0x1FFFFFL) << 21) | (cz & 0x1FFFFFL);
+    }
+
+    /**
+     * 单元格，保存落在单元格内的节点下标
+     */
+    private static class Cell {
+        private int[] indexes = new int[4];
+        private int size;
+
+        private void add(int index) {
+            if (size == indexes.length) {
+                indexes = Arrays.copyOf(indexes, size << 1);
+            }
+            indexes[size++] = index;
+        }
+
+        private boolean remove(int index) {
+            for (int i = 0; i < size; i++) {
+                if (indexes[i] == index) {
+                    System.arraycopy(indexes, i + 1, indexes, i, size - i - 1);
+                    size--;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -1,12 +1,21 @@
 package com.demo.study.model;
 
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 描述自定义线程池信息
+ * 线程池按用途命名：建立邻里关系（topology）、分路传送（relay）、蒙特卡洛重复实验（replica）。
+ * 线程数默认与CPU核数相同，等待队列默认容量为 {@link #DEFAULT_QUEUE_CAPACITY}，
+ * 可以用系统属性 study.thread-pool.名称.threads / study.thread-pool.名称.queue-capacity 修改，
+ * 在Spring中通过同名配置项修改（见 com.demo.study.config.ThreadPoolProperties）
  *
  * @author Tongyu Wu
  * @version 1.0
@@ -22,13 +31,310 @@ public class ThreadPoolConfig {
      */
     public static final AtomicInteger THREAD_ID_GENERATOR = new AtomicInteger(0);
     /**
-     * 自定义线程池
+     * 配置项前缀
+     */
+    public static final String PROPERTY_PREFIX = "study.thread-pool";
+    /**
+     * 建立邻里关系的线程池名称
+     */
+    public static final String TOPOLOGY = "topology";
+    /**
+     * 分路传送的线程池名称
+     */
+    public static final String RELAY = "relay";
+    /**
+     * 蒙特卡洛重复实验的线程池名称
+     */
+    public static final String REPLICA = "replica";
+    /**
+     * 等待队列的默认容量
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    /**
+     * 虚拟线程执行器的类名，类在 src/main/java21 中
+     */
+    private static final String VIRTUAL_THREAD_EXECUTOR = "com.demo.study.model.VirtualThreadExecutor";
+    /**
+     * 通过 {@link #configure} 修改过的线程池大小，键为线程池名称
+     */
+    private static final Map<String, PoolSettings> SETTINGS = Maps.newHashMap();
+    /**
+     * 建立邻里关系用的分治线程池
+     */
+    private static ForkJoinPool topologyPool;
+    /**
+     * 分路传送（{@link RelayMode#FORK_JOIN}）用的分治线程池
+     */
+    private static ForkJoinPool relayPool;
+    /**
+     * 分路传送（{@link RelayMode#THREAD_POOL}）用的线程池
      */
-    public static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(2,
-            2,
-            60,
-            TimeUnit.SECONDS,
-            new ArrayBlockingQueue<>(100),
-            (runnable) -> new Thread(runnable, String.format("%s-%s", "接力线程", THREAD_ID_GENERATOR.incrementAndGet())),
-            new ThreadPoolExecutor.AbortPolicy());
+    private static NamedThreadPoolExecutor relayExecutor;
+    /**
+     * 蒙特卡洛重复实验用的线程池
+     */
+    private static NamedThreadPoolExecutor replicaExecutor;
+    /**
+     * 分路传送（{@link RelayMode#VIRTUAL_THREAD}）用的虚拟线程执行器，只在java21配置中存在，运行在JDK 21以上时才能加载
+     */
+    private static ExecutorService virtualThreadExecutor;
+
+    /**
+     * @return 建立邻里关系用的分治线程池
+     */
+    public static synchronized ForkJoinPool topologyPool() {
+        if (topologyPool == null) {
+            topologyPool = newForkJoinPool("拓扑线程", threads(TOPOLOGY, RUNTIME.availableProcessors()));
+        }
+        return topologyPool;
+    }
+
+    /**
+     * @return 分路传送（{@link RelayMode#FORK_JOIN}）用的分治线程池
+     */
+    public static synchronized ForkJoinPool relayPool() {
+        if (relayPool == null) {
+            relayPool = newForkJoinPool("分治接力线程", threads(RELAY, defaultRelayThreads()));
+        }
+        return relayPool;
+    }
+
+    /**
+     * @return 分路传送（{@link RelayMode#THREAD_POOL}）用的线程池
+     */
+    public static synchronized NamedThreadPoolExecutor relayExecutor() {
+        if (relayExecutor == null) {
+            relayExecutor = new NamedThreadPoolExecutor("接力线程",
+                    threads(RELAY, defaultRelayThreads()),
+                    queueCapacity(RELAY));
+        }
+        return relayExecutor;
+    }
+
+    /**
+     * @return 蒙特卡洛重复实验用的线程池
+     */
+    public static synchronized NamedThreadPoolExecutor replicaExecutor() {
+        if (replicaExecutor == null) {
+            replicaExecutor = new NamedThreadPoolExecutor("实验线程",
+                    threads(REPLICA, RUNTIME.availableProcessors()),
+                    queueCapacity(REPLICA));
+        }
+        return replicaExecutor;
+    }
+
+    /**
+     * 虚拟线程执行器只编译在多版本jar的 META-INF/versions/21 中，只有从jar运行时JDK才会加载；
+     * 从编译目录（target/classes）运行时找不到这个类
+     *
+     * @return 分路传送（{@link RelayMode#VIRTUAL_THREAD}）用的虚拟线程执行器
+     * @throws UnsupportedOperationException 没有从java21配置（mvn -Pjava21 package）打包的jar运行，或者运行在JDK 21以下
+     */
+    public static synchronized ExecutorService virtualThreadExecutor() {
+        if (virtualThreadExecutor == null) {
+            try {
+                virtualThreadExecutor = (ExecutorService) Class.forName(VIRTUAL_THREAD_EXECUTOR)
+                        .getMethod("create")
+                        .invoke(null);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                throw new UnsupportedOperationException("虚拟线程需要从java21配置（mvn -Pjava21 package）打包的jar运行，并且运行在JDK 21以上", e);
+            }
+        }
+        return virtualThreadExecutor;
+    }
+
+    /**
+     * @return 是否可以使用虚拟线程执行分路传送
+     */
+    public static boolean isVirtualThreadSupported() {
+        try {
+            virtualThreadExecutor();
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 修改线程池的大小。还没有创建的线程池只记录大小，第一次使用时按这个大小创建；
+     * 已经创建的普通线程池直接调整线程数，等待队列的容量不能修改，需要替换线程池；
+     * 分治线程池的并行度不能修改，替换为新的线程池，原来的线程池执行完已提交的任务后关闭
+     *
+     * @param name     线程池名称
+     * @param settings 线程池的大小，不大于0的值使用系统属性，没有系统属性时使用默认值
+     */
+    public static synchronized void configure(String name,
+                                              PoolSettings settings) {
+        switch (name) {
+            case TOPOLOGY:
+                SETTINGS.put(TOPOLOGY, copyOf(settings));
+                if (topologyPool != null) {
+                    topologyPool = replace(topologyPool, "拓扑线程", threads(TOPOLOGY, RUNTIME.availableProcessors()));
+                }
+                break;
+            case RELAY:
+                SETTINGS.put(RELAY, copyOf(settings));
+                if (relayPool != null) {
+                    relayPool = replace(relayPool, "分治接力线程", threads(RELAY, defaultRelayThreads()));
+                }
+                if (relayExecutor != null) {
+                    relayExecutor = replace(relayExecutor, "接力线程", threads(RELAY, defaultRelayThreads()), queueCapacity(RELAY));
+                }
+                break;
+            case REPLICA:
+                SETTINGS.put(REPLICA, copyOf(settings));
+                if (replicaExecutor != null) {
+                    replicaExecutor = replace(replicaExecutor, "实验线程", threads(REPLICA, RUNTIME.availableProcessors()), queueCapacity(REPLICA));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("unknown thread pool: " + name);
+        }
+    }
+
+    /**
+     * @param name 线程池名称
+     * @return 线程池生效的大小（配置项、系统属性、默认值依次生效），分治线程池没有等待队列，容量为0
+     */
+    public static synchronized PoolSettings settings(String name) {
+        PoolSettings settings = new PoolSettings();
+        switch (name) {
+            case TOPOLOGY:
+                settings.setThreads(threads(TOPOLOGY, RUNTIME.availableProcessors()));
+                break;
+            case RELAY:
+                settings.setThreads(threads(RELAY, defaultRelayThreads()));
+                settings.setQueueCapacity(queueCapacity(RELAY));
+                break;
+            case REPLICA:
+                settings.setThreads(threads(REPLICA, RUNTIME.availableProcessors()));
+                settings.setQueueCapacity(queueCapacity(REPLICA));
+                break;
+            default:
+                throw new IllegalArgumentException("unknown thread pool: " + name);
+        }
+        return settings;
+    }
+
+    /**
+     * @return 已经创建的线程池当前的运行情况（队列中的任务数、被拒绝的任务数等），不会创建还没有使用的线程池
+     */
+    public static synchronized List<PoolMetrics> metrics() {
+        List<PoolMetrics> metrics = Lists.newArrayListWithCapacity(4);
+        if (topologyPool != null) {
+            metrics.add(metrics(topologyPool));
+        }
+        if (relayPool != null) {
+            metrics.add(metrics(relayPool));
+        }
+        if (relayExecutor != null) {
+            metrics.add(relayExecutor.metrics());
+        }
+        if (replicaExecutor != null) {
+            metrics.add(replicaExecutor.metrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * 分治线程池的运行情况，分治线程池不会拒绝任务，也不统计已完成的任务（为0），只统计窃取任务的次数；
+     * 等待执行的任务包括外部提交的任务和工作线程队列中的任务
+     */
+    public static PoolMetrics metrics(ForkJoinPool pool) {
+        return new PoolMetrics(pool.getFactory().toString(),
+                pool.getParallelism(),
+                pool.getActiveThreadCount(),
+                pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount(),
+                0,
+                pool.getStealCount(),
+                0);
+    }
+
+    /**
+     * 分路传送的线程数至少为2，接收端和接力端的路由可以同时进行
+     */
+    private static int defaultRelayThreads() {
+        return Math.max(2, RUNTIME.availableProcessors());
+    }
+
+    /**
+     * 线程数依次取 {@link #configure} 记录的值、系统属性、默认值
+     */
+    private static int threads(String name,
+                               int defaultValue) {
+        PoolSettings settings = SETTINGS.get(name);
+        return orDefault(settings == null ? 0 : settings.getThreads(),
+                orDefault(Integer.getInteger(String.format("%s.%s.threads", PROPERTY_PREFIX, name), 0), defaultValue));
+    }
+
+    /**
+     * 等待队列的容量依次取 {@link #configure} 记录的值、系统属性、默认值
+     */
+    private static int queueCapacity(String name) {
+        PoolSettings settings = SETTINGS.get(name);
+        return orDefault(settings == null ? 0 : settings.getQueueCapacity(),
+                orDefault(Integer.getInteger(String.format("%s.%s.queue-capacity", PROPERTY_PREFIX, name), 0), DEFAULT_QUEUE_CAPACITY));
+    }
+
+    private static PoolSettings copyOf(PoolSettings settings) {
+        PoolSettings copy = new PoolSettings();
+        copy.setThreads(settings.getThreads());
+        copy.setQueueCapacity(settings.getQueueCapacity());
+        return copy;
+    }
+
+    private static int orDefault(int value,
+                                 int defaultValue) {
+        return value > 0 ? value : defaultValue;
+    }
+
+    private static ForkJoinPool replace(ForkJoinPool pool,
+                                        String threadName,
+                                        int threads) {
+        if (pool.getParallelism() == threads) {
+            return pool;
+        }
+        pool.shutdown();
+        return newForkJoinPool(threadName, threads);
+    }
+
+    private static NamedThreadPoolExecutor replace(NamedThreadPoolExecutor executor,
+                                                   String threadName,
+                                                   int threads,
+                                                   int queueCapacity) {
+        if (executor.getQueue().remainingCapacity() + executor.getQueue().size() == queueCapacity) {
+            executor.resize(threads);
+            return executor;
+        }
+        executor.shutdown();
+        return new NamedThreadPoolExecutor(threadName, threads, queueCapacity);
+    }
+
+    private static ForkJoinPool newForkJoinPool(String threadName,
+                                                int threads) {
+        return new ForkJoinPool(threads, new NamedWorkerThreadFactory(threadName), null, false);
+    }
+
+    /**
+     * 分治线程池的线程工厂，线程名称为“名称-序号”
+     */
+    private static final class NamedWorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        private final String name;
+
+        private NamedWorkerThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(String.format("%s-%s", name, THREAD_ID_GENERATOR.incrementAndGet()));
+            return thread;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
 }
@@ -0,0 +1,96 @@
+package com.demo.study.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 路由过程中使用的网络拓扑：光学邻居、声学邻居、向下找时要用到的节点三种邻接表（附带边的距离），
+ * 以及所有节点到目标节点的距离。
+ * 节点位置和邻居集合在一次模拟路由（多轮）的过程中不会变化，所以建立一次后可以被所有轮次和分路共享
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/6 21:05
+ */
+@Getter
+public class Topology {
+    /**
+     * 光学邻居邻接表
+     */
+    private final Adjacency opticalAdjacency;
+    /**
+     * 声学邻居邻接表
+     */
+    private final Adjacency acousticAdjacency;
+    /**
+     * 向下找时要用到的节点的邻接表
+     */
+    private final Adjacency continueAdjacency;
+    /**
+     * 空间中所有节点，用于计算到目标节点的距离
+     */
+    @Getter(AccessLevel.NONE)
+    private final List<Node> nodes;
+    /**
+     * 最近一次使用的目标节点及所有节点到它的距离，分路共享同一个拓扑，所以用volatile发布
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile DestinationDistances destinationDistances;
+
+    private Topology(List<Node> nodes,
+                     Adjacency opticalAdjacency,
+                     Adjacency acousticAdjacency,
+                     Adjacency continueAdjacency) {
+        this.nodes = nodes;
+        this.opticalAdjacency = opticalAdjacency;
+        this.acousticAdjacency = acousticAdjacency;
+        this.continueAdjacency = continueAdjacency;
+    }
+
+    /**
+     * 按节点当前的三种邻居集合生成拓扑，邻居集合变化后（例如增加节点）需要重新生成
+     *
+     * @param nodes 空间中所有节点
+     * @return 拓扑
+     */
+    public static Topology of(List<Node> nodes) {
+        return new Topology(nodes, Adjacency.of(nodes, 0), Adjacency.of(nodes, 1), Adjacency.of(nodes, 2));
+    }
+
+    /**
+     * 返回所有节点到目标节点的距离（下标为节点ID），同一个目标节点只计算一次。
+     * 多个线程同时第一次调用时可能各算一次，结果相同，不影响正确性
+     *
+     * @param destinationId 目标节点ID
+     * @return 所有节点到目标节点的距离，调用方不能修改
+     */
+    public double[] distancesTo(int destinationId) {
+        DestinationDistances cached = destinationDistances;
+        if (cached != null && cached.destinationId == destinationId) {
+            return cached.distances;
+        }
+        Node destinationNode = nodes.get(destinationId);
+        double[] distances = new double[nodes.size()];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = MyUtils.distance(nodes.get(i), destinationNode);
+        }
+        destinationDistances = new DestinationDistances(destinationId, distances);
+        return distances;
+    }
+
+    /**
+     * 目标节点ID与所有节点到它的距离
+     */
+    private static final class DestinationDistances {
+        private final int destinationId;
+        private final double[] distances;
+
+        private DestinationDistances(int destinationId,
+                                     double[] distances) {
+            this.destinationId = destinationId;
+            this.distances = distances;
+        }
+    }
+}
@@ -1,18 +1,17 @@
 package com.demo.study.model.algo;
 
 import com.demo.study.model.*;
-import com.demo.study.model.result.Result;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.collections4.MapUtils;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * 描述路由过程、传输过程、处理故障过程等主要代码
@@ -24,9 +23,9 @@ import java.util.concurrent.ExecutionException;
 @Slf4j
 public abstract class Algorithm {
     /**
-     * 控制发送数据线程安全的锁
+     * 控制发送数据线程安全的锁，按发送端和接收端的节点ID分段
      */
-    private static final Object SEND_LOCK = new Object();
+    private static final NodeLocks SEND_LOCKS = new NodeLocks(1024);
 
     /**
      * 模拟路由过程
@@ -35,124 +34,253 @@ public abstract class Algorithm {
      * @return 路由结果，true：成功，false：失败
      */
     public boolean route(SimulationConfig param) {
-        // 缓存待发送数据包的第一个数据包
-        Packet firstSubPacket = param.getSubPacketMapping().firstEntry().getValue();
-        // 缓存源节点
-        Node sourceNode = param.getNodes().get(firstSubPacket.getSourceNodeId());
-        // 缓存目标节点
-        Node destinationNode = param.getNodes().get(firstSubPacket.getDestinationNodeId());
-
-        // 缓存路由路径
-        List<Integer> nodeIds = param.getRoutingPath();
-        // 把源节点放进路由路径
-        nodeIds.add(sourceNode.getId());
-
-        param.setRouteNodes(Lists.newArrayList());
-        param.getRouteNodes().add(param.getNodes().get(sourceNode.getId()));
-
-        // 创建队列
-        LinkedList<Node> queue = Lists.newLinkedList();
-        // 把源节点放进队列
-        queue.addLast(sourceNode);
-
-        // 测试队列是否为空，不为空则进入循环
-        while (!queue.isEmpty()) {
-            // 取出并删除队列的头节点，作为当前节点
-            Node currentNode = queue.removeFirst();
-
-            // 如果本次路由过程总跳数超过阈值，则路由失败
-            if (nodeIds.size() > param.getConfig().getMaxHop()) {
-                MyUtils.saveFailureReason(param.getFailureReasons(), FailureReason.REASON_1);
-                return false;
-            }
-
-            Map<String, Object> extraData = Maps.newHashMap();
+        // 没有设置网络拓扑时，按节点当前的邻居集合生成
+        if (Objects.isNull(param.getTopology())) {
+            param.setTopology(Topology.of(param.getNodes()));
+        }
 
-            // 创建一个集合，用于保存可作为下一跳的候选节点
-            Result<List<Node>> getCandiddatesResult = getCandidates(param, currentNode, destinationNode, extraData);
-            if (getCandiddatesResult.isNotSuccess()) {
-                return false;
+        // 取出当前线程的缓冲区，路由结束后归还
+        RouteScratch scratch = RouteScratch.acquire();
+        try {
+            return route(param, scratch);
+        } finally {
+            if (param.isPrimitivePathFlag()) {
+                param.getHopCount().addAndGet(scratch.getPathSize());
             }
-            List<Node> candidateNodes = getCandiddatesResult.getData();
+            scratch.release();
+        }
+    }
 
-            if (param.isEnableRelayFlag()) {
-                BigDecimal distance = BigDecimal.valueOf(MyUtils.distance(currentNode, destinationNode));
-                if (param.getDangerousCount() > 0 && distance.intValue() <= param.getDangerousDistance()) {
-                    param.setDangerousFlag(true);
+    /**
+     * 批量模拟多个数据流（每个数据流一组数据包）的路由过程，所有数据流在当前线程上逐跳交替前进。
+     * 同一跳中到达同一个节点、发往同一个目标节点的数据流共享候选节点和下一跳的计算结果（由第一个到达的数据流计算）。
+     * 共享只按当前节点和目标节点区分，所以查找候选节点和选择下一跳时用到的配置必须相同：
+     * 同一组节点、同一个节点配置（NodeConfig）和能量账本、相同的分路传送开关和故障设置（dangerousFlag、dangerousCount、dangerousDistance），
+     * 否则抛出 {@link IllegalArgumentException}。
+     * <p>
+     * 只有一个数据流时与 {@link #route(SimulationConfig)} 的结果一致；多个数据流的结果可能与逐个调用 route() 不同：
+     * 逐个调用时后一个数据流在前一个数据流路由结束后才开始，按消耗后的能量选择每一跳；批量路由时后到达的数据流直接使用
+     * 第一个数据流在这一跳发送数据包之前选出的下一跳，即使第一个数据流发送数据包后这个节点的能量已经不是最高。
+     * 没有候选节点时不共享，每个数据流各自记录失败原因
+     *
+     * @param flows 每个数据流的配置
+     * @return 每个数据流的路由结果，顺序与flows一致，true：成功，false：失败
+     * @throws IllegalArgumentException 数据流的节点、节点配置、能量账本、分路传送开关或故障设置不同
+     */
+    public List<Boolean> routeBatch(List<SimulationConfig> flows) {
+        Topology topology = null;
+        SimulationConfig first = flows.get(0);
+        for (SimulationConfig flow : flows) {
+            if (flow.getNodes() != first.getNodes()) {
+                throw new IllegalArgumentException("all flows must share the same nodes");
+            }
+            if (flow.getConfig() != first.getConfig() || flow.getEnergyLedger() != first.getEnergyLedger()) {
+                throw new IllegalArgumentException("all flows must share the same node config and energy ledger");
+            }
+            if (flow.isEnableRelayFlag() != first.isEnableRelayFlag()
+                    || flow.isDangerousFlag() != first.isDangerousFlag()
+                    || flow.getDangerousCount() != first.getDangerousCount()
+                    || flow.getDangerousDistance() != first.getDangerousDistance()) {
+                throw new IllegalArgumentException("all flows must share the same relay and dangerous settings");
+            }
+            if (Objects.nonNull(flow.getTopology())) {
+                topology = flow.getTopology();
+            }
+        }
+        // 没有设置网络拓扑时，所有数据流使用同一个按节点当前的邻居集合生成的拓扑
+        for (SimulationConfig flow : flows) {
+            if (Objects.isNull(flow.getTopology())) {
+                if (Objects.isNull(topology)) {
+                    topology = Topology.of(flow.getNodes());
                 }
+                flow.setTopology(topology);
             }
+        }
 
-            // 遍历候选节点
-            for (Node candidateNode : candidateNodes) {
-                // 如果当前遍历的候选节点是目标节点
-                if (candidateNode.getId() == destinationNode.getId()) {
-                    // 向目标节点发送数据包
-                    int routingResult = sendPocket(param, currentNode, candidateNode);
-                    // 如果发送成功
-                    if (routingResult == RoutingStatus.SUCCESS.getCode()) {
-                        // 把目标节点的ID放进路由路径
-                        nodeIds.add(candidateNode.getId());
-                        // 路由成功
-                        return true;
-                    } else {
-                        // 计算路由结果，返回路由结果
-                        return routingResult == RoutingStatus.SENDING_END_SUCCESS.getCode();
+        // 每个数据流使用当前线程中各自的一组缓冲区
+        List<Flow> states = Lists.newArrayListWithCapacity(flows.size());
+        try {
+            for (SimulationConfig flow : flows) {
+                states.add(new Flow(flow, RouteScratch.acquire()));
+            }
+            // 同一跳中共享的候选节点，key：当前节点ID和目标节点ID
+            Map<Long, Hop> hops = Maps.newHashMap();
+            boolean active = true;
+            while (active) {
+                active = false;
+                hops.clear();
+                for (Flow state : states) {
+                    if (Objects.isNull(state.result)) {
+                        advance(state, hops);
+                        active |= Objects.isNull(state.result);
                     }
                 }
             }
+        } finally {
+            for (Flow state : states) {
+                if (state.param.isPrimitivePathFlag()) {
+                    state.param.getHopCount().addAndGet(state.scratch.getPathSize());
+                }
+                state.scratch.release();
+            }
+        }
 
-            int transmissionDistance = getTransmissionDistance(param, extraData);
+        List<Boolean> results = Lists.newArrayListWithCapacity(states.size());
+        for (Flow state : states) {
+            results.add(state.result);
+        }
+        return results;
+    }
 
-            // 优先级最高的节点的ID
-            int nodeIdWithMaxMeasure = getNodeIdWithMaxMeasure(param, candidateNodes, currentNode, destinationNode, transmissionDistance);
+    /**
+     * 使用缓冲区模拟路由过程
+     *
+     * @param param   模拟所需的参数配置
+     * @param scratch 当前线程的缓冲区
+     * @return 路由结果，true：成功，false：失败
+     */
+    private boolean route(SimulationConfig param,
+                          RouteScratch scratch) {
+        Flow flow = new Flow(param, scratch);
+        while (Objects.isNull(flow.result)) {
+            advance(flow, null);
+        }
+        return flow.result;
+    }
 
-            // 缓存最大优先级的节点作为下一跳节点
-            Node nextHopNode = param.getNodes().get(nodeIdWithMaxMeasure);
+    /**
+     * 数据流从当前节点前进一跳，路由结束时设置路由结果
+     *
+     * @param flow 数据流的路由状态
+     * @param hops 同一跳中共享的候选节点，为null时不共享
+     */
+    private void advance(Flow flow,
+                         Map<Long, Hop> hops) {
+        SimulationConfig param = flow.param;
+        RouteScratch scratch = flow.scratch;
+        Node currentNode = flow.currentNode;
+        Node destinationNode = flow.destinationNode;
+
+        // 如果本次路由过程总跳数超过阈值，则路由失败
+        if (scratch.getPathSize() > param.getConfig().getMaxHop()) {
+            MyUtils.saveFailureReason(param.getFailureReasons(), FailureReason.REASON_1);
+            flow.result = false;
+            return;
+        }
 
-            // 当前节点往下一跳节点发送所有数据包
-            int routingResult = sendPocket(param, currentNode, nextHopNode);
-            // 发送成功
-            if (routingResult == RoutingStatus.SUCCESS.getCode()) {
-                // 把下一跳节点放进路由路径中
-                nodeIds.add(nextHopNode.getId());
-                param.getRouteNodes().add(param.getNodes().get(nextHopNode.getId()));
-                // 下一跳节点入队
-                queue.addLast(nextHopNode);
-            } else if (routingResult == RoutingStatus.SENDING_END_SUCCESS.getCode()) {
-                // 如果在传输数据包的过程中，发送端节点出现了故障，当分路最终把数据包发送到目标节点的时候，这里直接返回成功
-                return true;
-            } else if (routingResult == RoutingStatus.RECEIVING_END_SUCCESS.getCode()) {
-                //log.info("接收端故障, 发送端重新发送数据，发送端节点ID: {}", currentNode.getId());
-                queue.addLast(currentNode);
+        // 同一跳中其他数据流已经在当前节点查找过候选节点时直接使用
+        long hopKey = ((long) currentNode.getId() << 32) | destinationNode.getId();
+        Hop hop = Objects.isNull(hops) ? null : hops.get(hopKey);
+        List<Node> candidateNodes;
+        int[] candidateSlots;
+        int transmissionDistance;
+        if (Objects.nonNull(hop)) {
+            candidateNodes = hop.candidates;
+            candidateSlots = hop.candidateSlots;
+            transmissionDistance = hop.transmissionDistance;
+        } else {
+            // 清空上一跳的候选节点，查找可作为下一跳的候选节点
+            scratch.clearCandidates();
+            if (!searchCandidates(param, currentNode, destinationNode, scratch)) {
+                flow.result = false;
+                return;
+            }
+            candidateNodes = scratch.getCandidates();
+            candidateSlots = scratch.getCandidateSlots();
+            transmissionDistance = scratch.getTransmissionDistance();
+            if (Objects.nonNull(hops)) {
+                hop = new Hop(Lists.newArrayList(candidateNodes),
+                        Arrays.copyOf(candidateSlots, candidateNodes.size()),
+                        transmissionDistance);
+                hops.put(hopKey, hop);
             }
         }
 
-        // 路由失败
-        return false;
-    }
+        if (param.isEnableRelayFlag()) {
+            // 当前节点到目标节点的距离（取整数部分）
+            int distance = (int) param.getTopology().distancesTo(destinationNode.getId())[currentNode.getId()];
+            if (param.getDangerousCount() > 0 && distance <= param.getDangerousDistance()) {
+                param.setDangerousFlag(true);
+            }
+        }
 
-    /**
-     * @param param
-     * @param currentNode
-     * @param destinationNode
-     * @param extraInfo
-     * @return
-     */
-    public abstract Result<List<Node>> getCandidates(SimulationConfig param,
-                                                     Node currentNode,
-                                                     Node destinationNode,
-                                                     Map<String, Object> extraInfo);
+        // 遍历候选节点
+        for (int i = 0, size = candidateNodes.size(); i < size; i++) {
+            Node candidateNode = candidateNodes.get(i);
+            // 如果当前遍历的候选节点是目标节点
+            if (candidateNode.getId() == destinationNode.getId()) {
+                // 向目标节点发送数据包
+                int routingResult = sendPocket(param, scratch, currentNode, candidateNode);
+                // 如果发送成功
+                if (routingResult == RoutingStatus.SUCCESS.getCode()) {
+                    // 把目标节点的ID放进路由路径
+                    flow.addPath(candidateNode);
+                    // 路由成功
+                    flow.result = true;
+                } else {
+                    // 计算路由结果，返回路由结果
+                    flow.result = routingResult == RoutingStatus.SENDING_END_SUCCESS.getCode();
+                }
+                return;
+            }
+        }
+
+        // 优先级最高的节点的ID
+        int nodeIdWithMaxMeasure;
+        if (Objects.nonNull(hop) && hop.nextHopId >= 0) {
+            nodeIdWithMaxMeasure = hop.nextHopId;
+        } else {
+            nodeIdWithMaxMeasure = getNodeIdWithMaxMeasure(param, candidateNodes, candidateSlots, currentNode, destinationNode,
+                    transmissionDistance);
+            if (Objects.nonNull(hop)) {
+                hop.nextHopId = nodeIdWithMaxMeasure;
+            }
+        }
+
+        // 缓存最大优先级的节点作为下一跳节点
+        Node nextHopNode = param.getNodes().get(nodeIdWithMaxMeasure);
+
+        // 当前节点往下一跳节点发送所有数据包
+        int routingResult = sendPocket(param, scratch, currentNode, nextHopNode);
+        // 发送成功
+        if (routingResult == RoutingStatus.SUCCESS.getCode()) {
+            // 把下一跳节点放进路由路径中
+            flow.addPath(nextHopNode);
+            if (flow.listPathFlag) {
+                param.getRouteNodes().add(param.getNodes().get(nextHopNode.getId()));
+            }
+            // 下一跳节点作为当前节点
+            flow.currentNode = nextHopNode;
+        } else if (routingResult == RoutingStatus.SENDING_END_SUCCESS.getCode()) {
+            // 如果在传输数据包的过程中，发送端节点出现了故障，当分路最终把数据包发送到目标节点的时候，这里直接返回成功
+            flow.result = true;
+        } else if (routingResult == RoutingStatus.RECEIVING_END_SUCCESS.getCode()) {
+            //log.info("接收端故障, 发送端重新发送数据，发送端节点ID: {}", currentNode.getId());
+            // 当前节点重新发送
+        } else {
+            flow.result = false;
+        }
+    }
 
     /**
-     * @param param
-     * @param extraInfo
-     * @return
+     * 查找当前节点可作为下一跳的候选节点，放进缓冲区的候选节点集合（已清空），并设置选择下一跳时使用的传输距离
+     * 没有候选节点时保存失败原因
+     *
+     * @param param           模拟所需的参数配置
+     * @param currentNode     当前节点
+     * @param destinationNode 目标节点
+     * @param scratch         当前线程的缓冲区
+     * @return true：找到候选节点；false：没有候选节点，路由失败
      */
-    public abstract int getTransmissionDistance(SimulationConfig param, Map<String, Object> extraInfo);
+    public abstract boolean searchCandidates(SimulationConfig param,
+                                             Node currentNode,
+                                             Node destinationNode,
+                                             RouteScratch scratch);
 
     /**
      * @param param
      * @param candidateNodes
+     * @param candidateSlots       候选节点在当前节点邻接表中的位置，与candidateNodes一一对应
      * @param currentNode
      * @param destinationNode
      * @param transmissionDistance
@@ -160,6 +288,7 @@ public abstract class Algorithm {
      */
     public abstract int getNodeIdWithMaxMeasure(SimulationConfig param,
                                                 List<Node> candidateNodes,
+                                                int[] candidateSlots,
                                                 Node currentNode,
                                                 Node destinationNode,
                                                 int transmissionDistance);
@@ -182,17 +311,19 @@ public abstract class Algorithm {
      * 模拟传输过程
      *
      * @param param            模拟所需的参数配置
+     * @param scratch          数据流的缓冲区，保存待发送的所有数据包
      * @param sendingEndNode   发送端节点
      * @param receivingEndNode 接收端节点
      * @return 传输结果，具体返回值的说明参考枚举文件：RoutingStatus
      */
     private int sendPocket(SimulationConfig param,
+                           RouteScratch scratch,
                            Node sendingEndNode,
                            Node receivingEndNode) {
-        // 缓存待发送的所有数据包
-        TreeMap<Integer, Packet> sendingPackets = param.getSubPacketMapping();
+        // 待发送的数据包数量
+        int packetCount = scratch.getPacketCount();
         // 如果没有要发送的数据包，抛出异常
-        if (MapUtils.isEmpty(sendingPackets)) {
+        if (packetCount == 0) {
             throw new RuntimeException();
         }
 
@@ -202,10 +333,10 @@ public abstract class Algorithm {
         int latch = 0;
         // 如果满足了预激活故障的条件
         if (Objects.nonNull(param.getUnavailableLatch()) && param.getUnavailableLatch().decrementAndGet() == 0) {
-            if (sendingPackets.size() > 2) {
+            if (packetCount > 2) {
                 // 初始化latch的值
                 latch = param.getTrap().getPacketSequence();
-                if (latch < sendingPackets.size() * 0.6) {
+                if (latch < packetCount * 0.6) {
                     latch = -1;
                 }
             } else {
@@ -213,16 +344,16 @@ public abstract class Algorithm {
             }
         }
 
-        // 遍历所有待发送的数据包
-        for (Map.Entry<Integer, Packet> subPacketEntry : sendingPackets.entrySet()) {
+        // 遍历所有待发送的数据包（按下标遍历，不创建迭代器）
+        for (int i = 0; i < packetCount; i++) {
             // 缓存当前数据包
-            Packet subPacket = subPacketEntry.getValue();
+            Packet subPacket = scratch.getPacket(i);
 
             int minSendPacketEnergy = param.getAlgorithm().getAlgoType() == AlgoType.ACOUSTIC.getAlgoType() ?
                     param.getConfig().getEnergyByAcoustic() : param.getConfig().getEnergyByOptical();
 
             // 发送端能量不足，返回失败
-            if (sendingEndNode.getEnergy() < minSendPacketEnergy) {
+            if (energyOf(param, sendingEndNode) < minSendPacketEnergy) {
                 MyUtils.saveFailureReason(param.getFailureReasons(), FailureReason.REASON_4);
                 return RoutingStatus.FAILURE.getCode();
             }
@@ -233,7 +364,7 @@ public abstract class Algorithm {
             // 如果满足发生故障的条件，处理发送节点故障
             if (
                 //subPacketSequence == latch
-                    param.isDangerousFlag() && ((double) subPacketSequence / sendingPackets.size()) > 0.6
+                    param.isDangerousFlag() && ((double) subPacketSequence / packetCount) > 0.6
             ) {
                 /*boolean receiveEndUnavailableFlag = new Random().nextBoolean();
                 if (receiveEndUnavailableFlag
@@ -245,6 +376,7 @@ public abstract class Algorithm {
 
                 // 设置发送端节点为不可用状态，这意味着这个节点不能被其他节点扫描到
                 sendingEndNode.setAvailableFlag(false);
+                touch(param, sendingEndNode);
 
                 param.setDangerousFlag(false);
                 param.setDangerousCount(param.getDangerousCount() - 1);
@@ -261,58 +393,50 @@ public abstract class Algorithm {
                 // 更新优化后故障次数
                 param.getUnavailableInfo().getEncountered().incrementAndGet();
 
+                // 接收端向下找时要用到的节点的邻接表
+                Adjacency continueAdjacency = param.getTopology().getContinueAdjacency();
+
                 // 接收端没有声通信距离内的邻居
-                if (CollectionUtils.isEmpty(receivingEndNode.getContinueNodes())) {
+                if (continueAdjacency.degree(receivingEndNode.getId()) == 0) {
                     MyUtils.saveFailureReason(param.getFailureReasons(), FailureReason.REASON_6);
                     // 返回失败
                     return RoutingStatus.FAILURE.getCode();
                 }
 
-                List<Node> relayNodes = Lists.newArrayList();
-
                 int minSendContinueEnergy = param.getAlgorithm().getAlgoType() == AlgoType.OPTICAL.getAlgoType() ?
                         param.getConfig().getEnergyByOptical() : param.getConfig().getEnergyByAcoustic();
 
+                // 离接收端最近的接力端（距离相同时取后遍历到的节点）
+                Node relayNodeNearest = null;
+                double minDistance = 0;
                 // 遍历接收端声通信距离内的所有邻居
-                for (Node continueNode : receivingEndNode.getContinueNodes()) {
+                for (int k = continueAdjacency.start(receivingEndNode.getId()), end = continueAdjacency.end(receivingEndNode.getId()); k < end; k++) {
+                    Node continueNode = param.getNodes().get(continueAdjacency.neighbor(k));
                     // 如果当前遍历的节点可用、能量充足、声通信距离内有邻居、完整数据包缓冲区里面包含所需数据包的ID的表
                     if (continueNode.isAvailableFlag()
-                            && continueNode.getEnergy() >= minSendContinueEnergy
+                            && energyOf(param, continueNode) >= minSendContinueEnergy
                             //&& CollectionUtils.isNotEmpty(continueNode.getAcousticNeighborNodes())
-                            && continueNode.getCompletePacketMapping().containsKey(subPacket.getId())
+                            && hasPackets(continueNode.getCompletePacketMapping().get(subPacket.getId()))
                             && continueNode.getPoint().getZAxis() <= receivingEndNode.getPoint().getZAxis()) {
-                        relayNodes.add(continueNode);
+                        // 距离在建立邻接表时已经算好
+                        double distance = continueAdjacency.distance(k);
+                        if (Objects.isNull(relayNodeNearest) || distance <= minDistance) {
+                            minDistance = distance;
+                            relayNodeNearest = continueNode;
+                        }
                     }
                 }
 
-                if (CollectionUtils.isEmpty(relayNodes)) {
+                if (Objects.isNull(relayNodeNearest)) {
                     MyUtils.saveFailureReason(param.getFailureReasons(), FailureReason.REASON_7);
                     return RoutingStatus.FAILURE.getCode();
                 }
 
-                Node relayNodeNearest = relayNodes.get(0);
-                double minDistance = MyUtils.distance(receivingEndNode, relayNodes.get(0));
-                for (int i = 1, size = relayNodes.size(); i < size; i++) {
-                    double distance = MyUtils.distance(receivingEndNode, relayNodes.get(i));
-                    if (distance <= minDistance) {
-                        minDistance = distance;
-                        relayNodeNearest = relayNodes.get(i);
-                    }
-                }
-
-                // 缓存接收端不完整数据包缓冲区中该数据包的所有子包
-                TreeMap<Integer, Packet> incompletePacketMap =
-                        receivingEndNode.getIncompletePacketMapping().get(subPacket.getId());
-                // 缓存接力端完整数据包缓冲区中该数据包的所有子包
-                TreeMap<Integer, Packet> completePacketMap =
-                        relayNodeNearest.getCompletePacketMapping().get(subPacket.getId());
-
                 // 兵分两路，接收端传输已收到的所有数据包，接力端传输接收端未收到的所有数据包
                 if (handleUnavailableCondition(param,
                         receivingEndNode,
                         relayNodeNearest,
-                        incompletePacketMap,
-                        completePacketMap)) {
+                        subPacket.getId())) {
                     // 分路传输成功，更新优化后幸存次数
                     param.getUnavailableInfo().getSurvived().incrementAndGet();
                     // 返回成功
@@ -324,14 +448,17 @@ public abstract class Algorithm {
                 return RoutingStatus.FAILURE.getCode();
             }
 
-            // 加锁
-            synchronized (SEND_LOCK) {
+            // 锁住发送端（能量）和接收端（缓冲区）
+            SEND_LOCKS.lock(sendingEndNode.getId(), receivingEndNode.getId());
+            try {
                 // 发送端向接收端发送当前数据包
                 if (!handleSubPacket(param, sendingEndNode, receivingEndNode, subPacket)) {
                     MyUtils.saveFailureReason(param.getFailureReasons(), FailureReason.REASON_9);
                     // 发送失败，返回失败
                     return RoutingStatus.FAILURE.getCode();
                 }
+            } finally {
+                SEND_LOCKS.unlock(sendingEndNode.getId(), receivingEndNode.getId());
             }
         }
 
@@ -341,72 +468,115 @@ public abstract class Algorithm {
 
     /**
      * 处理发送端故障的情况
+     * 其他分路可能同时向接收端和接力端发送数据包，先锁住两个节点的缓冲区复制要发送的数据包，再分路。
+     * 接收端还没有收到这个数据包的子包时只有接力端一路；其他分路已经把所有子包发到接收端时只有接收端一路
      *
      * @param param                模拟所需的参数配置
      * @param receivingEndNode     接收端节点
      * @param acousticNeighborNode 接力端节点
-     * @param incompletePacketMap  接收端不完整数据缓冲区缓存
-     * @param completePacketMap    接力端完整数据缓冲区缓存
+     * @param packetId             数据包ID
      * @return 处理结果
      */
     private boolean handleUnavailableCondition(SimulationConfig param,
                                                Node receivingEndNode,
                                                Node acousticNeighborNode,
-                                               TreeMap<Integer, Packet> incompletePacketMap,
-                                               TreeMap<Integer, Packet> completePacketMap) {
+                                               String packetId) {
         // 用于保存接收端未接收的数据包，即接力端需要发送的数据包
         TreeMap<Integer, Packet> notReceivedSubPacketMapping = Maps.newTreeMap();
-        // 遍历接力端完整数据缓冲区中，关于指定数据包的表
-        for (Map.Entry<Integer, Packet> entry : completePacketMap.entrySet()) {
-            // 缓存当前遍历的数据包
-            Packet subPacket = entry.getValue();
-            // 如果当前遍历的数据包已被接收端接收过，则跳过
-            if (incompletePacketMap.containsKey(subPacket.getSequence())) {
-                continue;
+        // 用于保存接收端已接收的数据包，即接收端需要发送的数据包
+        TreeMap<Integer, Packet> receivedSubPacketMapping = Maps.newTreeMap();
+        SEND_LOCKS.lock(receivingEndNode.getId(), acousticNeighborNode.getId());
+        try {
+            // 接收端已收到的子包：不完整数据包缓冲区中的重组过程，已经收齐时在完整数据包缓冲区中，都没有时为null
+            PacketAssembly receivedAssembly = receivingEndNode.getIncompletePacketMapping().get(packetId);
+            if (!hasPackets(receivedAssembly)) {
+                receivedAssembly = receivingEndNode.getCompletePacketMapping().get(packetId);
+            }
+            if (!hasPackets(receivedAssembly)) {
+                receivedAssembly = null;
+            }
+            // 接力端完整数据缓冲区中该数据包的所有子包
+            PacketAssembly completeAssembly = acousticNeighborNode.getCompletePacketMapping().get(packetId);
+
+            // 按序号遍历接力端完整数据缓冲区中，关于指定数据包的子包
+            for (int sequence = completeAssembly.nextSequence(0); sequence >= 0; sequence = completeAssembly.nextSequence(sequence + 1)) {
+                // 如果当前遍历的数据包已被接收端接收过，则跳过
+                if (Objects.nonNull(receivedAssembly) && receivedAssembly.contains(sequence)) {
+                    continue;
+                }
+                // 复制当前遍历的数据包
+                Packet subPacket = duplicateSubPacket(completeAssembly.get(sequence));
+                // 把数据包的源节点ID改成接力端节点的ID
+                subPacket.setSourceNodeId(acousticNeighborNode.getId());
+                // 把当前数据包放到用于保存接收端未接收的数据包表中
+                notReceivedSubPacketMapping.put(sequence, subPacket);
             }
-            // 复制当前遍历的数据包
-            subPacket = duplicateSubPacket(subPacket);
-            // 把数据包的源节点ID改成接力端节点的ID
-            subPacket.setSourceNodeId(acousticNeighborNode.getId());
-            // 把当前数据包放到用于保存接收端未接收的数据包表中
-            notReceivedSubPacketMapping.put(entry.getKey(), subPacket);
+
+            if (Objects.nonNull(receivedAssembly)) {
+                // 按序号遍历接收端缓冲区中，关于指定数据包的子包
+                for (int sequence = receivedAssembly.nextSequence(0); sequence >= 0; sequence = receivedAssembly.nextSequence(sequence + 1)) {
+                    // 复制当前遍历的数据包
+                    Packet subPacket = duplicateSubPacket(receivedAssembly.get(sequence));
+                    // 把数据包的源节点ID改成接收端节点的ID
+                    subPacket.setSourceNodeId(receivingEndNode.getId());
+                    // 把当前数据包放到用于保存接收端已接收的数据包表中
+                    receivedSubPacketMapping.put(sequence, subPacket);
+                }
+            }
+        } finally {
+            SEND_LOCKS.unlock(receivingEndNode.getId(), acousticNeighborNode.getId());
         }
 
-        // 用于保存接收端已接收的数据包，即接收端需要发送的数据包
-        TreeMap<Integer, Packet> receivedSubPacketMapping = Maps.newTreeMap();
-        // 遍历接收端不完整数据缓冲区中，关于指定数据包的表
-        for (Map.Entry<Integer, Packet> entry : incompletePacketMap.entrySet()) {
-            // 复制当前遍历的数据包
-            Packet subPacket = duplicateSubPacket(entry.getValue());
-            // 把数据包的源节点ID改成接收端节点的ID
-            subPacket.setSourceNodeId(receivingEndNode.getId());
-            // 把当前数据包放到用于保存接收端已接收的数据包表中
-            receivedSubPacketMapping.put(entry.getKey(), subPacket);
+        // 只有一路有数据包要发送时，在当前线程上路由
+        if (receivedSubPacketMapping.isEmpty() || notReceivedSubPacketMapping.isEmpty()) {
+            SimulationConfig config = param.fork(receivedSubPacketMapping.isEmpty() ?
+                    notReceivedSubPacketMapping : receivedSubPacketMapping);
+            if (!param.isPrimitivePathFlag()) {
+                param.getRoutingPaths().add(config.getRoutingPath());
+            }
+            return param.getAlgorithm().route(config);
         }
 
         // 发送已收到的数据包
-        // 初始化接收端路由的配置
-        SimulationConfig config1 = Converter.INSTANCE.convertToDsConfig(param);
-        config1.setRoutingPath(Lists.newArrayList());
-        config1.setSubPacketMapping(receivedSubPacketMapping);
-        param.getRoutingPaths().add(config1.getRoutingPath());
-        config1.setConsumeTimes(param.getConsumeTimes());
-        config1.setConsumeEnergies(param.getConsumeEnergies());
-        // 执行接收端路由任务
-        CompletableFuture<Boolean> handleReceivedSubPacketsResult =
-                CompletableFuture.supplyAsync(() -> param.getAlgorithm().route(config1), ThreadPoolConfig.EXECUTOR);
-
+        // 初始化接收端路由的配置（共享的状态直接引用，见 SimulationConfig#fork）
+        SimulationConfig config1 = param.fork(receivedSubPacketMapping);
         // 发送未收到的数据包
         // 初始化接力端路由的配置
-        SimulationConfig config2 = Converter.INSTANCE.convertToDsConfig(param);
-        config2.setRoutingPath(Lists.newArrayList());
-        config2.setSubPacketMapping(notReceivedSubPacketMapping);
-        param.getRoutingPaths().add(config2.getRoutingPath());
-        config2.setConsumeTimes(param.getConsumeTimes());
-        config2.setConsumeEnergies(param.getConsumeEnergies());
+        SimulationConfig config2 = param.fork(notReceivedSubPacketMapping);
+        if (!param.isPrimitivePathFlag()) {
+            param.getRoutingPaths().add(config1.getRoutingPath());
+            param.getRoutingPaths().add(config2.getRoutingPath());
+        }
+
+        // 接收端和接力端两路路由任务都成功把数据包发送到终点，才算处理成功
+        if (param.getRelayMode() == RelayMode.FORK_JOIN) {
+            return relayByForkJoin(param.getAlgorithm(), config1, config2);
+        }
+        if (param.getRelayMode() == RelayMode.VIRTUAL_THREAD) {
+            return relayByThreadPool(param.getAlgorithm(), config1, config2, ThreadPoolConfig.virtualThreadExecutor());
+        }
+        return relayByThreadPool(param.getAlgorithm(), config1, config2, ThreadPoolConfig.relayExecutor());
+    }
+
+    /**
+     * 在线程池（{@link ThreadPoolConfig#relayExecutor()} 或虚拟线程执行器）中执行接收端和接力端的路由任务，当前线程等待两路任务完成
+     *
+     * @param algorithm 路由算法
+     * @param config1   接收端路由的配置
+     * @param config2   接力端路由的配置
+     * @param executor  执行路由任务的线程池
+     * @return true：两路都路由成功；false：至少有一路失败
+     */
+    private static boolean relayByThreadPool(Algorithm algorithm,
+                                             SimulationConfig config1,
+                                             SimulationConfig config2,
+                                             Executor executor) {
+        // 执行接收端路由任务
+        CompletableFuture<Boolean> handleReceivedSubPacketsResult =
+                CompletableFuture.supplyAsync(() -> algorithm.route(config1), executor);
         // 执行接力端路由任务
         CompletableFuture<Boolean> handleNotReceivedSubPacketsResult =
-                CompletableFuture.supplyAsync(() -> param.getAlgorithm().route(config2), ThreadPoolConfig.EXECUTOR);
+                CompletableFuture.supplyAsync(() -> algorithm.route(config2), executor);
 
         // 当前线程等待接收端和接力端任务完成
         CompletableFuture.allOf(handleNotReceivedSubPacketsResult, handleReceivedSubPacketsResult).join();
@@ -429,7 +599,56 @@ public abstract class Algorithm {
     }
 
     /**
-     * 模拟发送端向接收端发送一个数据包的过程
+     * 在 {@link ThreadPoolConfig#relayPool()} 中以分治方式执行接收端和接力端的路由任务。
+     * 分路中再次发生故障时，当前线程已经是分治线程池的线程，直接在当前线程中拆分，
+     * 等待子任务的线程会执行其他任务而不是一直阻塞，所以不会占满线程池
+     *
+     * @param algorithm 路由算法
+     * @param config1   接收端路由的配置
+     * @param config2   接力端路由的配置
+     * @return true：两路都路由成功；false：至少有一路失败
+     */
+    private static boolean relayByForkJoin(Algorithm algorithm,
+                                           SimulationConfig config1,
+                                           SimulationConfig config2) {
+        RelayTask task = new RelayTask(algorithm, config1, config2);
+        ForkJoinPool pool = ThreadPoolConfig.relayPool();
+        if (ForkJoinTask.getPool() == pool) {
+            return task.invoke();
+        }
+        return pool.invoke(task);
+    }
+
+    /**
+     * 节点的剩余能量，设置了能量账本时从账本读取
+     *
+     * @param param 模拟所需的参数配置
+     * @param node  节点
+     * @return 剩余能量
+     */
+    protected static int energyOf(SimulationConfig param,
+                                  Node node) {
+        EnergyLedger energyLedger = param.getEnergyLedger();
+        return Objects.isNull(energyLedger) ? node.getEnergy() : energyLedger.get(node.getId());
+    }
+
+    /**
+     * 设置了节点状态记录时，标记节点已修改
+     *
+     * @param param 模拟所需的参数配置
+     * @param node  节点
+     */
+    private static void touch(SimulationConfig param,
+                              Node node) {
+        NodeStates nodeStates = param.getNodeStates();
+        if (Objects.nonNull(nodeStates)) {
+            nodeStates.touch(node);
+        }
+    }
+
+    /**
+     * 模拟发送端向接收端发送一个数据包的过程。
+     * 接收端按数据包ID建表（完整数据包的子包表或者不完整数据包的重组过程），每个数据包ID在每个接收端创建一次，每个子包占用一个表项
      *
      * @param param            模拟所需的参数配置
      * @param sendingEndNode   发送端节点
@@ -450,8 +669,6 @@ public abstract class Algorithm {
             throw new IllegalStateException();
         }
 
-        BigDecimal distance = BigDecimal.valueOf(MyUtils.distance(sendingEndNode, receivingEndNode));
-        BigDecimal consumeTime = distance.divide(BigDecimal.valueOf(transmissionSpeed), 2, RoundingMode.HALF_UP);
 
         int transmissionEnergy;
         if (param.getAlgorithm().getAlgoType() == 1 || param.getAlgorithm().getAlgoType() == 3) {
@@ -462,65 +679,65 @@ public abstract class Algorithm {
             throw new IllegalStateException();
         }
 
+        // 记录发送端（能量）和接收端（缓冲区）已修改
+        touch(param, sendingEndNode);
+        touch(param, receivingEndNode);
+
         // 发送端消耗发送一个数据包的能量（源节点不消耗能量）
         if (!sendingEndNode.equals(param.getNodes().get(0))) {
-            sendingEndNode.setEnergy(sendingEndNode.getEnergy() - transmissionEnergy);
+            EnergyLedger energyLedger = param.getEnergyLedger();
+            if (Objects.isNull(energyLedger)) {
+                sendingEndNode.setEnergy(sendingEndNode.getEnergy() - transmissionEnergy);
+            } else if (!energyLedger.debit(sendingEndNode.getId(), transmissionEnergy)) {
+                // 检查能量之后其他分路已经把发送端的能量用完，发送失败
+                return false;
+            }
         }
 
-        param.getConsumeTimes().add(consumeTime);
-        param.getConsumeEnergies().add(transmissionEnergy);
+        // 传输时间（保留两位小数）累加到定点数中
+        double distance = MyUtils.distance(sendingEndNode, receivingEndNode);
+        param.getConsumeTime().add(distance, transmissionSpeed);
+        if (Objects.nonNull(param.getHopLatency())) {
+            param.getHopLatency().record(DelayAccumulator.toHundredths(distance, transmissionSpeed));
+        }
+        param.getConsumeEnergy().add(transmissionEnergy);
 
-        // 接收端收到数据包
-        receivingEndNode.getReceivedPackets().add(packetPart);
-        // 接收端取出数据包
-        Packet receivedPocketPart = receivingEndNode.getReceivedPackets().removeFirst();
-        // 接收端复制数据包
-        Packet duplicate = duplicateSubPacket(receivedPocketPart);
+        // 接收端收到数据包。数据包不会被修改（分路时修改源节点ID之前先复制，见 handleUnavailableCondition），
+        // 接收端直接保存发送端的数据包，不再经过接收队列和复制
 
         // 缓存接收端的完整数据包缓冲区
-        LinkedHashMap<String, TreeMap<Integer, Packet>> completePacketMapping =
-                receivingEndNode.getCompletePacketMapping();
+        LinkedHashMap<String, PacketAssembly> completePacketMapping = receivingEndNode.getCompletePacketMapping();
 
         // 数据包是整包
-        if (duplicate.getData().size() == duplicate.getTotalBytes()) {
-            // 完整数据包缓冲区不包含该数据包ID的表，则建表，关联该数据包ID
-            if (!completePacketMapping.containsKey(duplicate.getId())) {
-                TreeMap<Integer, Packet> treeMap = Maps.newTreeMap();
-                completePacketMapping.put(duplicate.getId(), treeMap);
-            }
-            // 保存数据包到完整数据缓冲区
-            completePacketMapping.get(duplicate.getId()).put(duplicate.getSequence(), duplicate);
+        if (packetPart.getData().size() == packetPart.getTotalBytes()) {
+            // 保存数据包到完整数据缓冲区，没有该数据包ID的重组过程时创建，恢复节点后留下的空的重组过程直接使用
+            assembly(completePacketMapping, packetPart).add(packetPart);
             // 处理成功
             return true;
         }
 
         // 数据包是子包
-        if (duplicate.getData().size() < duplicate.getTotalBytes()) {
+        if (packetPart.getData().size() < packetPart.getTotalBytes()) {
             // 缓存接收端不完整数据包缓冲区
-            LinkedHashMap<String, TreeMap<Integer, Packet>> incompletePacketMapping =
+            LinkedHashMap<String, PacketAssembly> incompletePacketMapping =
                     receivingEndNode.getIncompletePacketMapping();
-            // 不完整数据包缓冲区不包含该数据包ID的表，则建表，关联该数据包ID
-            if (!incompletePacketMapping.containsKey(duplicate.getId())) {
-                TreeMap<Integer, Packet> treeMap = Maps.newTreeMap();
-                incompletePacketMapping.put(duplicate.getId(), treeMap);
-            }
-            // 保存数据包到不完整数据缓冲区
-            incompletePacketMapping.get(duplicate.getId()).put(duplicate.getSequence(), duplicate);
-            // 在不完整数据缓冲区中，当前数据包ID的所有子包加起来的字节数
-            int currentTotalBytes = 0;
-            // 遍历不完整数据缓冲区中当前数据包ID的所有子包，对所有子包中的数据大小求和
-            for (Map.Entry<Integer, Packet> entry : incompletePacketMapping.get(duplicate.getId()).entrySet()) {
-                currentTotalBytes += entry.getValue().getData().size();
-            }
-            // 如果求和结果和数据包中的总字节数大小相同，则说明这些子包可以组成完整的数据包，也就是接收端已经收到了当前数据包ID的所有子包
-            if (currentTotalBytes == duplicate.getTotalBytes()) {
-                // 完整数据包缓冲区不包含该数据包ID的表，则建表，关联该数据包ID
-                if (!completePacketMapping.containsKey(duplicate.getId())) {
-                    TreeMap<Integer, Packet> treeMap = Maps.newTreeMap();
-                    completePacketMapping.put(duplicate.getId(), treeMap);
+            // 保存数据包到不完整数据缓冲区，已收到的字节数与总字节数相同，则说明接收端已经收到了当前数据包ID的所有子包
+            PacketAssembly assembly = assembly(incompletePacketMapping, packetPart);
+            if (assembly.add(packetPart)) {
+                // 把收齐的重组过程移动到完整数据缓冲区。完整数据缓冲区中原来的（或上一个数据包ID留下的空的）重组过程
+                // 清空后放回不完整数据缓冲区，替换已有表项的值，不需要新建重组过程
+                PacketAssembly spare = completePacketMapping.containsKey(packetPart.getId())
+                        ? null : takeEmpty(completePacketMapping);
+                PacketAssembly previous = completePacketMapping.put(packetPart.getId(), assembly);
+                if (Objects.isNull(previous)) {
+                    previous = spare;
+                }
+                if (Objects.isNull(previous)) {
+                    incompletePacketMapping.remove(packetPart.getId());
+                } else {
+                    previous.clear();
+                    incompletePacketMapping.put(packetPart.getId(), previous);
                 }
-                // 把不完整数据缓冲区的数据包移动到完整数据缓冲区
-                completePacketMapping.put(duplicate.getId(), incompletePacketMapping.remove(duplicate.getId()));
             }
             // 处理成功
             return true;
@@ -537,8 +754,178 @@ public abstract class Algorithm {
      * @return 复制的数据包
      */
     private Packet duplicateSubPacket(Packet subPacket) {
-        Packet subPacketCopy = Converter.INSTANCE.convertToPacket(subPacket);
-        subPacketCopy.setData(Lists.newArrayList(subPacket.getData()));
-        return subPacketCopy;
+        // 数据不可修改，复制的数据包与原来的数据包共享数据
+        return Converter.INSTANCE.convertToPacket(subPacket);
+    }
+
+    /**
+     * 取出缓冲区中数据包所在的重组过程：没有时使用上一个数据包ID留下的空的重组过程或者新建，
+     * 为空（恢复节点后保留的表项）时按数据包的总字节数重新开始
+     *
+     * @param packetMapping 接收端的不完整或完整数据包缓冲区
+     * @param packetPart    收到的数据包
+     * @return 重组过程
+     */
+    private static PacketAssembly assembly(LinkedHashMap<String, PacketAssembly> packetMapping,
+                                           Packet packetPart) {
+        PacketAssembly assembly = packetMapping.get(packetPart.getId());
+        if (Objects.isNull(assembly)) {
+            assembly = takeEmpty(packetMapping);
+            if (Objects.isNull(assembly)) {
+                assembly = new PacketAssembly(packetPart.getTotalBytes());
+            } else {
+                assembly.reset(packetPart.getTotalBytes());
+            }
+            packetMapping.put(packetPart.getId(), assembly);
+        } else if (assembly.isEmpty()) {
+            assembly.reset(packetPart.getTotalBytes());
+        }
+        return assembly;
+    }
+
+    /**
+     * 恢复节点后缓冲区只保留一个表项（见 {@link NodeStates#restoreRound()}），下一轮的数据包ID不同时，
+     * 把这个空的重组过程从缓冲区中删除后给新的数据包ID使用
+     *
+     * @param packetMapping 接收端的不完整或完整数据包缓冲区
+     * @return 空的重组过程，没有时为null
+     */
+    private static PacketAssembly takeEmpty(LinkedHashMap<String, PacketAssembly> packetMapping) {
+        if (packetMapping.size() != 1) {
+            return null;
+        }
+        Iterator<PacketAssembly> iterator = packetMapping.values().iterator();
+        PacketAssembly assembly = iterator.next();
+        if (!assembly.isEmpty()) {
+            return null;
+        }
+        iterator.remove();
+        return assembly;
+    }
+
+    /**
+     * @param assembly 缓冲区中的重组过程
+     * @return 是否收到过子包（恢复节点后保留的空的重组过程表示没有这个数据包）
+     */
+    private static boolean hasPackets(PacketAssembly assembly) {
+        return Objects.nonNull(assembly) && !assembly.isEmpty();
+    }
+
+    /**
+     * 一个数据流的路由状态：当前节点、目标节点、路由路径和路由结果
+     */
+    private static final class Flow {
+        /**
+         * 模拟所需的参数配置
+         */
+        private final SimulationConfig param;
+        /**
+         * 数据流使用的缓冲区
+         */
+        private final RouteScratch scratch;
+        /**
+         * 目标节点
+         */
+        private final Node destinationNode;
+        /**
+         * 是否写入routingPath和routeNodes
+         */
+        private final boolean listPathFlag;
+        /**
+         * 当前节点，每一跳最多只有一个节点等待处理，所以不需要队列
+         */
+        private Node currentNode;
+        /**
+         * 路由结果，为null时还在路由
+         */
+        private Boolean result;
+
+        private Flow(SimulationConfig param,
+                     RouteScratch scratch) {
+            this.param = param;
+            this.scratch = scratch;
+            // 取出待发送的所有数据包，之后每一跳按下标遍历
+            scratch.loadPackets(param.getSubPacketMapping());
+            // 缓存待发送数据包的第一个数据包
+            Packet firstSubPacket = param.getSubPacketMapping().firstEntry().getValue();
+            // 缓存源节点和目标节点
+            Node sourceNode = param.getNodes().get(firstSubPacket.getSourceNodeId());
+            destinationNode = param.getNodes().get(firstSubPacket.getDestinationNodeId());
+            listPathFlag = !param.isPrimitivePathFlag();
+            // 把源节点放进路由路径
+            if (listPathFlag) {
+                param.setRouteNodes(Lists.newArrayList());
+                param.getRouteNodes().add(param.getNodes().get(sourceNode.getId()));
+            }
+            addPath(sourceNode);
+            currentNode = sourceNode;
+        }
+
+        /**
+         * 把节点放进路由路径
+         */
+        private void addPath(Node node) {
+            scratch.addPath(node.getId());
+            if (listPathFlag) {
+                param.getRoutingPath().add(node.getId());
+            }
+        }
+    }
+
+    /**
+     * 同一跳中多个数据流共享的候选节点和下一跳
+     */
+    private static final class Hop {
+        /**
+         * 候选节点（复制缓冲区中的候选节点）
+         */
+        private final List<Node> candidates;
+        /**
+         * 候选节点在当前节点邻接表中的位置
+         */
+        private final int[] candidateSlots;
+        /**
+         * 选择下一跳时使用的传输距离
+         */
+        private final int transmissionDistance;
+        /**
+         * 优先级最高的节点的ID，-1表示还没有计算
+         */
+        private int nextHopId = -1;
+
+        private Hop(List<Node> candidates,
+                    int[] candidateSlots,
+                    int transmissionDistance) {
+            this.candidates = candidates;
+            this.candidateSlots = candidateSlots;
+            this.transmissionDistance = transmissionDistance;
+        }
+    }
+
+    /**
+     * 分路传送的分治任务：同时执行接收端和接力端的路由任务
+     */
+    private static class RelayTask extends RecursiveTask<Boolean> {
+        private final Algorithm algorithm;
+        private final SimulationConfig config1;
+        private final SimulationConfig config2;
+
+        private RelayTask(Algorithm algorithm,
+                          SimulationConfig config1,
+                          SimulationConfig config2) {
+            this.algorithm = algorithm;
+            this.config1 = config1;
+            this.config2 = config2;
+        }
+
+        @Override
+        protected Boolean compute() {
+            // 接收端路由任务
+            ForkJoinTask<Boolean> handleReceivedSubPacketsTask = ForkJoinTask.adapt(() -> algorithm.route(config1));
+            // 接力端路由任务
+            ForkJoinTask<Boolean> handleNotReceivedSubPacketsTask = ForkJoinTask.adapt(() -> algorithm.route(config2));
+            invokeAll(handleReceivedSubPacketsTask, handleNotReceivedSubPacketsTask);
+            return handleReceivedSubPacketsTask.join() && handleNotReceivedSubPacketsTask.join();
+        }
     }
-}
\ No newline at end of file
+}
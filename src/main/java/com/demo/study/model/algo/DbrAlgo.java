@@ -1,13 +1,8 @@
 package com.demo.study.model.algo;
 
 import com.demo.study.model.*;
-import com.demo.study.model.result.Result;
-import com.demo.study.model.result.ResultUtils;
-import com.google.common.collect.Lists;
-import org.apache.commons.collections4.CollectionUtils;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * @author Tongyu Wu
@@ -16,38 +11,35 @@ import java.util.Map;
  */
 public class DbrAlgo extends Algorithm {
     @Override
-    public Result<List<Node>> getCandidates(SimulationConfig param,
-                                            Node currentNode,
-                                            Node destinationNode,
-                                            Map<String, Object> extraInfo) {
+    public boolean searchCandidates(SimulationConfig param,
+                                    Node currentNode,
+                                    Node destinationNode,
+                                    RouteScratch scratch) {
         // 没有邻居
-        if (CollectionUtils.isEmpty(currentNode.getAcousticNeighborNodes())) {
+        if (param.getTopology().getAcousticAdjacency().degree(currentNode.getId()) == 0) {
             MyUtils.saveFailureReason(param.getFailureReasons(), FailureReason.REASON_12);
-            return ResultUtils.failureWithMessage(FailureReason.REASON_12.getMessage());
+            return false;
         }
 
-        // 候选节点
-        List<Node> candidateNodes = Lists.newArrayList();
+        // 候选节点（缓冲区中已清空）
+        List<Node> candidateNodes = scratch.getCandidates();
 
-        searchCandidateNodes(param, currentNode, destinationNode, candidateNodes);
+        searchCandidateNodes(param, currentNode, destinationNode, scratch);
+        scratch.setTransmissionDistance(param.getConfig().getAcousticDistance());
 
         // 没有候选节点
-        if (CollectionUtils.isEmpty(candidateNodes)) {
+        if (candidateNodes.isEmpty()) {
             MyUtils.saveFailureReason(param.getFailureReasons(), FailureReason.REASON_11);
-            return ResultUtils.failureWithMessage(FailureReason.REASON_11.getMessage());
+            return false;
         }
 
-        return ResultUtils.successWithData(candidateNodes);
-    }
-
-    @Override
-    public int getTransmissionDistance(SimulationConfig param, Map<String, Object> extraInfo) {
-        return param.getConfig().getAcousticDistance();
+        return true;
     }
 
     @Override
     public int getNodeIdWithMaxMeasure(SimulationConfig param,
                                        List<Node> candidateNodes,
+                                       int[] candidateSlots,
                                        Node currentNode,
                                        Node destinationNode,
                                        int transmissionDistance) {
@@ -83,22 +75,24 @@ public class DbrAlgo extends Algorithm {
      * @param param
      * @param currentNode
      * @param destinationNode
-     * @param candidateNodes
+     * @param scratch
      */
     private void searchCandidateNodes(SimulationConfig param,
                                       Node currentNode,
                                       Node destinationNode,
-                                      List<Node> candidateNodes) {
+                                      RouteScratch scratch) {
+        Adjacency adjacency = param.getTopology().getAcousticAdjacency();
         // 遍历当前节点的光通信距离内的邻居
-        for (Node neighborNode : currentNode.getAcousticNeighborNodes()) {
+        for (int k = adjacency.start(currentNode.getId()), end = adjacency.end(currentNode.getId()); k < end; k++) {
+            Node neighborNode = param.getNodes().get(adjacency.neighbor(k));
             // 测试计算出来的数值、能量、指定节点的可用状态、指定节点的光通信距离内的邻居数量
             if (
                     neighborNode.getPoint().getZAxis() >= currentNode.getPoint().getZAxis()
-                            && neighborNode.getEnergy() >= param.getConfig().getEnergyByAcoustic()
+                            && energyOf(param, neighborNode) >= param.getConfig().getEnergyByAcoustic()
                             && neighborNode.isAvailableFlag()
-                            && CollectionUtils.isNotEmpty(neighborNode.getAcousticNeighborNodes())) {
+                            && adjacency.degree(neighborNode.getId()) > 0) {
                 // 把符合条件的指定节点放入候选节点集合
-                candidateNodes.add(neighborNode);
+                scratch.addCandidate(neighborNode, k);
             }
         }
     }
@@ -1,13 +1,8 @@
 package com.demo.study.model.algo;
 
 import com.demo.study.model.*;
-import com.demo.study.model.result.Result;
-import com.demo.study.model.result.ResultUtils;
-import com.google.common.collect.Lists;
-import org.apache.commons.collections4.CollectionUtils;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * @author Tongyu Wu
@@ -15,47 +10,41 @@ import java.util.Map;
  * @date 2024/7/21 19:29
  */
 public class DsAlgo extends Algorithm {
-    private final String transmissionDistance = "transmissionDistance";
-
     @Override
-    public Result<List<Node>> getCandidates(SimulationConfig param,
-                                            Node currentNode,
-                                            Node destinationNode,
-                                            Map<String, Object> extraInfo) {
+    public boolean searchCandidates(SimulationConfig param,
+                                    Node currentNode,
+                                    Node destinationNode,
+                                    RouteScratch scratch) {
         // 没有邻居
-        if (CollectionUtils.isEmpty(currentNode.getOpticalNeighborNodes())) {
+        if (param.getTopology().getOpticalAdjacency().degree(currentNode.getId()) == 0) {
             MyUtils.saveFailureReason(param.getFailureReasons(), FailureReason.REASON_10);
-            return ResultUtils.failureWithMessage(FailureReason.REASON_10.getMessage());
+            return false;
         }
 
-        // 候选节点
-        List<Node> candidateNodes = Lists.newArrayList();
+        // 候选节点（缓冲区中已清空）
+        List<Node> candidateNodes = scratch.getCandidates();
 
-        searchLongCandidateNodes(param, currentNode, destinationNode, candidateNodes);
-        extraInfo.put(transmissionDistance, param.getConfig().getOpticalDistance());
+        searchLongCandidateNodes(param, currentNode, destinationNode, scratch);
+        scratch.setTransmissionDistance(param.getConfig().getOpticalDistance());
 
         // 长距离小角度没有候选节点
-        if (CollectionUtils.isEmpty(candidateNodes)) {
-            searchShortCandidateNodes(param, currentNode, destinationNode, candidateNodes);
-            extraInfo.put(transmissionDistance, param.getConfig().getOpticalShortDistance());
+        if (candidateNodes.isEmpty()) {
+            searchShortCandidateNodes(param, currentNode, destinationNode, scratch);
+            scratch.setTransmissionDistance(param.getConfig().getOpticalShortDistance());
             // 短距离大角度没有候选节点
-            if (CollectionUtils.isEmpty(candidateNodes)) {
+            if (candidateNodes.isEmpty()) {
                 MyUtils.saveFailureReason(param.getFailureReasons(), FailureReason.REASON_3);
-                return ResultUtils.failureWithMessage(FailureReason.REASON_3.getMessage());
+                return false;
             }
         }
 
-        return ResultUtils.successWithData(candidateNodes);
-    }
-
-    @Override
-    public int getTransmissionDistance(SimulationConfig param, Map<String, Object> extraInfo) {
-        return (Integer) extraInfo.get(transmissionDistance);
+        return true;
     }
 
     @Override
     public int getNodeIdWithMaxMeasure(SimulationConfig param,
                                        List<Node> candidateNodes,
+                                       int[] candidateSlots,
                                        Node currentNode,
                                        Node destinationNode,
                                        int transmissionDistance) {
@@ -63,12 +52,18 @@ public class DsAlgo extends Algorithm {
         int nodeIdWithMaxMeasure = 0;
         // 度量
         double measure = 0;
+        Adjacency adjacency = param.getTopology().getOpticalAdjacency();
+        // 所有节点到目标节点的距离
+        double[] destinationDistances = param.getTopology().distancesTo(destinationNode.getId());
         // 下面根据论文中的公式计算优先级并更新优先级最高的节点的ID
-        for (Node candidateNode : candidateNodes) {
-            double d = MyUtils.distance(currentNode, candidateNode);
-            double cosine = MyUtils.cosine(currentNode, candidateNode, destinationNode);
+        for (int index = 0, size = candidateNodes.size(); index < size; index++) {
+            Node candidateNode = candidateNodes.get(index);
+            // 查找候选节点时记录了它在当前节点邻接表中的位置
+            double d = adjacency.distance(candidateSlots[index]);
+            double cosine = MyUtils.cosine(destinationDistances[candidateNode.getId()],
+                    destinationDistances[currentNode.getId()], d);
             double u = d * cosine / transmissionDistance;
-            int e = candidateNode.getEnergy();
+            int e = energyOf(param, candidateNode);
             double i = (double) e / param.getConfig().getEnergy();
             double j = u + i;
             if (measure < j) {
@@ -100,29 +95,36 @@ public class DsAlgo extends Algorithm {
      * @param param
      * @param currentNode
      * @param destinationNode
-     * @param candidateNodes
+     * @param scratch
      */
     private void searchShortCandidateNodes(SimulationConfig param,
                                            Node currentNode,
                                            Node destinationNode,
-                                           List<Node> candidateNodes) {
+                                           RouteScratch scratch) {
+        Topology topology = param.getTopology();
+        Adjacency adjacency = topology.getOpticalAdjacency();
+        // 所有节点到目标节点的距离
+        double[] destinationDistances = topology.distancesTo(destinationNode.getId());
         // 遍历当前节点的光通信距离内的邻居
-        for (Node neighborNode : currentNode.getOpticalNeighborNodes()) {
+        for (int k = adjacency.start(currentNode.getId()), end = adjacency.end(currentNode.getId()); k < end; k++) {
+            Node neighborNode = param.getNodes().get(adjacency.neighbor(k));
             // 下面根据论文里面的公式计算一些数值
             /*double isPane = MyUtils.isAbovePlane(currentNode, neighborNode, destinationNode);
             double cosine = isPane / (MyUtils.distance(currentNode, neighborNode)
                     * MyUtils.distance(currentNode, destinationNode));*/
-            double cosine = MyUtils.cosine(currentNode, neighborNode, destinationNode);
+            // 三条边都已经算好：邻居到目标节点、当前节点到目标节点、当前节点到邻居
+            double cosine = MyUtils.cosine(destinationDistances[neighborNode.getId()],
+                    destinationDistances[currentNode.getId()], adjacency.distance(k));
             // 测试计算出来的数值、能量、指定节点的可用状态、指定节点的光通信距离内的邻居数量
             if (
                     neighborNode.getPoint().getZAxis() >= currentNode.getPoint().getZAxis()
                             // 0° <= 角度 <= 30°
                             && (cosine >= (Math.sqrt(3) / 2) && cosine <= 1)
-                            && neighborNode.getEnergy() >= param.getConfig().getEnergyByOptical()
+                            && energyOf(param, neighborNode) >= param.getConfig().getEnergyByOptical()
                             && neighborNode.isAvailableFlag()
-                            && CollectionUtils.isNotEmpty(neighborNode.getOpticalNeighborNodes())) {
+                            && topology.getOpticalAdjacency().degree(neighborNode.getId()) > 0) {
                 // 把符合条件的指定节点放入候选节点集合
-                candidateNodes.add(neighborNode);
+                scratch.addCandidate(neighborNode, k);
             }
         }
     }
@@ -133,29 +135,36 @@ public class DsAlgo extends Algorithm {
      * @param param
      * @param currentNode
      * @param destinationNode
-     * @param candidateNodes
+     * @param scratch
      */
     private void searchLongCandidateNodes(SimulationConfig param,
                                           Node currentNode,
                                           Node destinationNode,
-                                          List<Node> candidateNodes) {
+                                          RouteScratch scratch) {
+        Topology topology = param.getTopology();
+        Adjacency adjacency = topology.getOpticalAdjacency();
+        // 所有节点到目标节点的距离
+        double[] destinationDistances = topology.distancesTo(destinationNode.getId());
         // 遍历当前节点的声通信距离内的邻居
-        for (Node neighborNode : currentNode.getOpticalNeighborNodes()) {
+        for (int k = adjacency.start(currentNode.getId()), end = adjacency.end(currentNode.getId()); k < end; k++) {
+            Node neighborNode = param.getNodes().get(adjacency.neighbor(k));
             // 下面根据论文里面的公式计算一些数值
             /*double isPane = MyUtils.isAbovePlane(currentNode, neighborNode, destinationNode);
             double cosine = isPane / (MyUtils.distance(currentNode, neighborNode)
                     * MyUtils.distance(currentNode, destinationNode));*/
-            double cosine = MyUtils.cosine(currentNode, neighborNode, destinationNode);
+            // 三条边都已经算好：邻居到目标节点、当前节点到目标节点、当前节点到邻居
+            double cosine = MyUtils.cosine(destinationDistances[neighborNode.getId()],
+                    destinationDistances[currentNode.getId()], adjacency.distance(k));
             // 测试计算出来的数值、能量、指定节点的可用状态、指定节点的光通信距离内的邻居数量
             if (
                     neighborNode.getPoint().getZAxis() >= currentNode.getPoint().getZAxis()
                             // 0° <= 角度 <= 25.84°
                             && (cosine >= 0.9 && cosine <= 1)
-                            && neighborNode.getEnergy() >= param.getConfig().getEnergyByOptical()
+                            && energyOf(param, neighborNode) >= param.getConfig().getEnergyByOptical()
                             && neighborNode.isAvailableFlag()
-                            && CollectionUtils.isNotEmpty(neighborNode.getAcousticNeighborNodes())) {
+                            && topology.getAcousticAdjacency().degree(neighborNode.getId()) > 0) {
                 // 把符合条件的指定节点放入候选节点集合
-                candidateNodes.add(neighborNode);
+                scratch.addCandidate(neighborNode, k);
             }
         }
     }
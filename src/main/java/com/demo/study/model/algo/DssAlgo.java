@@ -1,13 +1,8 @@
 package com.demo.study.model.algo;
 
 import com.demo.study.model.*;
-import com.demo.study.model.result.Result;
-import com.demo.study.model.result.ResultUtils;
-import com.google.common.collect.Lists;
-import org.apache.commons.collections4.CollectionUtils;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * @author Tongyu Wu
@@ -16,38 +11,35 @@ import java.util.Map;
  */
 public class DssAlgo extends Algorithm {
     @Override
-    public Result<List<Node>> getCandidates(SimulationConfig param,
-                                            Node currentNode,
-                                            Node destinationNode,
-                                            Map<String, Object> extraInfo) {
+    public boolean searchCandidates(SimulationConfig param,
+                                    Node currentNode,
+                                    Node destinationNode,
+                                    RouteScratch scratch) {
         // 没有邻居
-        if (CollectionUtils.isEmpty(currentNode.getOpticalNeighborNodes())) {
+        if (param.getTopology().getOpticalAdjacency().degree(currentNode.getId()) == 0) {
             MyUtils.saveFailureReason(param.getFailureReasons(), FailureReason.REASON_10);
-            return ResultUtils.failureWithMessage(FailureReason.REASON_10.getMessage());
+            return false;
         }
 
-        // 候选节点
-        List<Node> candidateNodes = Lists.newArrayList();
+        // 候选节点（缓冲区中已清空）
+        List<Node> candidateNodes = scratch.getCandidates();
 
-        searchCandidateNodes(param, currentNode, destinationNode, candidateNodes);
+        searchCandidateNodes(param, currentNode, destinationNode, scratch);
+        scratch.setTransmissionDistance(param.getConfig().getOpticalDistance());
 
         // 没有候选节点
-        if (CollectionUtils.isEmpty(candidateNodes)) {
+        if (candidateNodes.isEmpty()) {
             MyUtils.saveFailureReason(param.getFailureReasons(), FailureReason.REASON_11);
-            return ResultUtils.failureWithMessage(FailureReason.REASON_11.getMessage());
+            return false;
         }
 
-        return ResultUtils.successWithData(candidateNodes);
-    }
-
-    @Override
-    public int getTransmissionDistance(SimulationConfig param, Map<String, Object> extraInfo) {
-        return param.getConfig().getOpticalDistance();
+        return true;
     }
 
     @Override
     public int getNodeIdWithMaxMeasure(SimulationConfig param,
                                        List<Node> candidateNodes,
+                                       int[] candidateSlots,
                                        Node currentNode,
                                        Node destinationNode,
                                        int transmissionDistance) {
@@ -55,12 +47,18 @@ public class DssAlgo extends Algorithm {
         int nodeIdWithMaxMeasure = 0;
         // 度量
         double measure = 0;
+        Adjacency adjacency = param.getTopology().getOpticalAdjacency();
+        // 所有节点到目标节点的距离
+        double[] destinationDistances = param.getTopology().distancesTo(destinationNode.getId());
         // 下面根据论文中的公式计算优先级并更新优先级最高的节点的ID
-        for (Node candidateNode : candidateNodes) {
-            double d = MyUtils.distance(currentNode, candidateNode);
-            double cosine = MyUtils.cosine(currentNode, candidateNode, destinationNode);
+        for (int index = 0, size = candidateNodes.size(); index < size; index++) {
+            Node candidateNode = candidateNodes.get(index);
+            // 查找候选节点时记录了它在当前节点邻接表中的位置
+            double d = adjacency.distance(candidateSlots[index]);
+            double cosine = MyUtils.cosine(destinationDistances[candidateNode.getId()],
+                    destinationDistances[currentNode.getId()], d);
             double u = d * cosine / transmissionDistance;
-            int e = candidateNode.getEnergy();
+            int e = energyOf(param, candidateNode);
             double i = (double) e / param.getConfig().getEnergy();
             double j = u + i;
             if (measure < j) {
@@ -90,22 +88,24 @@ public class DssAlgo extends Algorithm {
      * @param param
      * @param currentNode
      * @param destinationNode
-     * @param candidateNodes
+     * @param scratch
      */
     private void searchCandidateNodes(SimulationConfig param,
                                       Node currentNode,
                                       Node destinationNode,
-                                      List<Node> candidateNodes) {
+                                      RouteScratch scratch) {
+        Adjacency adjacency = param.getTopology().getOpticalAdjacency();
         // 遍历当前节点的光通信距离内的邻居
-        for (Node neighborNode : currentNode.getOpticalNeighborNodes()) {
+        for (int k = adjacency.start(currentNode.getId()), end = adjacency.end(currentNode.getId()); k < end; k++) {
+            Node neighborNode = param.getNodes().get(adjacency.neighbor(k));
             // 测试计算出来的数值、能量、指定节点的可用状态、指定节点的光通信距离内的邻居数量
             if (
                     neighborNode.getPoint().getZAxis() >= currentNode.getPoint().getZAxis()
-                            && neighborNode.getEnergy() >= param.getConfig().getEnergyByOptical()
+                            && energyOf(param, neighborNode) >= param.getConfig().getEnergyByOptical()
                             && neighborNode.isAvailableFlag()
-                            && CollectionUtils.isNotEmpty(neighborNode.getOpticalNeighborNodes())) {
+                            && adjacency.degree(neighborNode.getId()) > 0) {
                 // 把符合条件的指定节点放入候选节点集合
-                candidateNodes.add(neighborNode);
+                scratch.addCandidate(neighborNode, k);
             }
         }
     }
@@ -3,10 +3,8 @@ package com.demo.study.model.algo;
 import com.demo.study.model.AlgoType;
 import com.demo.study.model.Node;
 import com.demo.study.model.SimulationConfig;
-import com.demo.study.model.result.Result;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * @author Tongyu Wu
@@ -24,25 +22,21 @@ public class MyRouteAlgo extends Algorithm {
     }
 
     @Override
-    public Result<List<Node>> getCandidates(SimulationConfig param,
-                                            Node currentNode,
-                                            Node destinationNode,
-                                            Map<String, Object> extraInfo) {
-        return algorithm.getCandidates(param, currentNode, destinationNode, extraInfo);
-    }
-
-    @Override
-    public int getTransmissionDistance(SimulationConfig param, Map<String, Object> extraInfo) {
-        return algorithm.getTransmissionDistance(param, extraInfo);
+    public boolean searchCandidates(SimulationConfig param,
+                                    Node currentNode,
+                                    Node destinationNode,
+                                    RouteScratch scratch) {
+        return algorithm.searchCandidates(param, currentNode, destinationNode, scratch);
     }
 
     @Override
     public int getNodeIdWithMaxMeasure(SimulationConfig param,
                                        List<Node> candidateNodes,
+                                       int[] candidateSlots,
                                        Node currentNode,
                                        Node destinationNode,
                                        int transmissionDistance) {
-        return algorithm.getNodeIdWithMaxMeasure(param, candidateNodes, currentNode, destinationNode, transmissionDistance);
+        return algorithm.getNodeIdWithMaxMeasure(param, candidateNodes, candidateSlots, currentNode, destinationNode, transmissionDistance);
     }
 
     @Override
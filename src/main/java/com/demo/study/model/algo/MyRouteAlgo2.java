@@ -2,7 +2,6 @@ package com.demo.study.model.algo;
 
 import com.demo.study.model.Node;
 import com.demo.study.model.SimulationConfig;
-import com.demo.study.model.result.Result;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -10,7 +9,6 @@ import lombok.NoArgsConstructor;
 import lombok.experimental.Accessors;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * @author Tongyu Wu
@@ -28,25 +26,21 @@ public class MyRouteAlgo2 extends Algorithm {
     private int downDistance;
 
     @Override
-    public Result<List<Node>> getCandidates(SimulationConfig param,
-                                            Node currentNode,
-                                            Node destinationNode,
-                                            Map<String, Object> extraInfo) {
-        return algorithm.getCandidates(param, currentNode, destinationNode, extraInfo);
-    }
-
-    @Override
-    public int getTransmissionDistance(SimulationConfig param, Map<String, Object> extraInfo) {
-        return algorithm.getTransmissionDistance(param, extraInfo);
+    public boolean searchCandidates(SimulationConfig param,
+                                    Node currentNode,
+                                    Node destinationNode,
+                                    RouteScratch scratch) {
+        return algorithm.searchCandidates(param, currentNode, destinationNode, scratch);
     }
 
     @Override
     public int getNodeIdWithMaxMeasure(SimulationConfig param,
                                        List<Node> candidateNodes,
+                                       int[] candidateSlots,
                                        Node currentNode,
                                        Node destinationNode,
                                        int transmissionDistance) {
-        return algorithm.getNodeIdWithMaxMeasure(param, candidateNodes, currentNode, destinationNode, transmissionDistance);
+        return algorithm.getNodeIdWithMaxMeasure(param, candidateNodes, candidateSlots, currentNode, destinationNode, transmissionDistance);
     }
 
     @Override
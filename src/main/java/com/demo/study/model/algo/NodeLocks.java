@@ -0,0 +1,84 @@
+package com.demo.study.model.algo;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按节点ID分段的锁
+ * 发送端向接收端发送数据包时只锁住这两个节点所在的分段，向不同节点发送数据包的线程（分路、同时进行的多轮路由）可以并行。
+ * 同时锁两个分段时总是先锁下标小的分段，避免死锁
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/11 15:12
+ */
+public final class NodeLocks {
+    /**
+     * 分段的锁
+     */
+    private final ReentrantLock[] locks;
+    /**
+     * 分段数量-1，用于计算节点所在的分段
+     */
+    private final int mask;
+
+    /**
+     * @param stripes 分段数量，向上取整为2的幂
+     */
+    public NodeLocks(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes: " + stripes);
+        }
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes) {
+            size <<= 1;
+        }
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * 锁住两个节点所在的分段
+     *
+     * @param nodeId1 节点1的ID
+     * @param nodeId2 节点2的ID
+     */
+    public void lock(int nodeId1,
+                     int nodeId2) {
+        int stripe1 = nodeId1 & mask;
+        int stripe2 = nodeId2 & mask;
+        if (stripe1 == stripe2) {
+            locks[stripe1].lock();
+            return;
+        }
+        locks[Math.min(stripe1, stripe2)].lock();
+        locks[Math.max(stripe1, stripe2)].lock();
+    }
+
+    /**
+     * 释放两个节点所在的分段，参数与 {@link #lock(int, int)} 一致
+     *
+     * @param nodeId1 节点1的ID
+     * @param nodeId2 节点2的ID
+     */
+    public void unlock(int nodeId1,
+                       int nodeId2) {
+        int stripe1 = nodeId1 & mask;
+        int stripe2 = nodeId2 & mask;
+        if (stripe1 == stripe2) {
+            locks[stripe1].unlock();
+            return;
+        }
+        locks[Math.max(stripe1, stripe2)].unlock();
+        locks[Math.min(stripe1, stripe2)].unlock();
+    }
+
+    /**
+     * @return 分段数量
+     */
+    public int getStripes() {
+        return locks.length;
+    }
+}
@@ -0,0 +1,203 @@
+package com.demo.study.model.algo;
+
+import com.demo.study.model.Node;
+import com.demo.study.model.Packet;
+import com.google.common.collect.Lists;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+/**
+ * 一次路由过程中使用的缓冲区：int数组形式的路由路径、候选节点缓冲区（以及候选节点在邻接表中的位置）、传输距离、待发送的数据包
+ * 每个线程保存一组缓冲区，路由开始时取出、结束时归还，多轮路由之间重复使用，每一跳不需要为路径、候选节点和遍历数据包创建新的对象
+ * （接收端缓冲区按数据包ID建表，仍然会创建对象，见 Algorithm#handleSubPacket）。
+ * 同一个线程上嵌套执行路由（例如分路任务在等待的线程上执行）时取下一组缓冲区，互不影响
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/8 20:16
+ */
+public final class RouteScratch {
+    /**
+     * 每个线程的第一组缓冲区
+     */
+    private static final ThreadLocal<RouteScratch> LOCAL = ThreadLocal.withInitial(RouteScratch::new);
+    /**
+     * 同一个线程上嵌套路由时使用的下一组缓冲区
+     */
+    private RouteScratch next;
+    /**
+     * 是否正在被路由过程使用
+     */
+    private boolean inUse;
+    /**
+     * 路由过程经过的节点的ID
+     */
+    private int[] path = new int[16];
+    /**
+     * 路由过程经过的节点数量
+     */
+    private int pathSize;
+    /**
+     * 当前节点的候选节点，每一跳开始前清空
+     */
+    private final ArrayList<Node> candidates = Lists.newArrayList();
+    /**
+     * 候选节点在当前节点邻接表中的位置，与候选节点一一对应，计算优先级时直接按位置读取距离
+     */
+    private int[] candidateSlots = new int[16];
+    /**
+     * 选择下一跳时使用的传输距离，由路由算法在查找候选节点时设置
+     */
+    private int transmissionDistance;
+    /**
+     * 数据流要发送的数据包，按序号排列，每一跳按下标遍历，不需要创建迭代器
+     */
+    private Packet[] packets = new Packet[16];
+    /**
+     * 数据流要发送的数据包数量
+     */
+    private int packetCount;
+
+    private RouteScratch() {
+    }
+
+    /**
+     * 取出当前线程中没有被使用的一组缓冲区，并清空路由路径
+     *
+     * @return 缓冲区
+     */
+    static RouteScratch acquire() {
+        RouteScratch scratch = LOCAL.get();
+        while (scratch.inUse) {
+            if (scratch.next == null) {
+                scratch.next = new RouteScratch();
+            }
+            scratch = scratch.next;
+        }
+        scratch.inUse = true;
+        scratch.pathSize = 0;
+        return scratch;
+    }
+
+    /**
+     * 归还缓冲区，路由过程结束后调用
+     */
+    void release() {
+        candidates.clear();
+        Arrays.fill(packets, 0, packetCount, null);
+        packetCount = 0;
+        inUse = false;
+    }
+
+    /**
+     * 取出数据流要发送的所有数据包，路由开始时调用一次
+     *
+     * @param subPacketMapping 要发送的数据包，以包的序号作为查找索引
+     */
+    void loadPackets(TreeMap<Integer, Packet> subPacketMapping) {
+        int size = subPacketMapping.size();
+        if (packets.length < size) {
+            packets = new Packet[Math.max(size, packets.length << 1)];
+        }
+        int i = 0;
+        for (Packet packet : subPacketMapping.values()) {
+            packets[i++] = packet;
+        }
+        packetCount = size;
+    }
+
+    /**
+     * @return 数据流要发送的数据包数量
+     */
+    int getPacketCount() {
+        return packetCount;
+    }
+
+    /**
+     * @param index 数据包在发送顺序中的位置
+     * @return 数据包
+     */
+    Packet getPacket(int index) {
+        return packets[index];
+    }
+
+    /**
+     * 清空候选节点和传输距离，每一跳开始前调用
+     */
+    void clearCandidates() {
+        candidates.clear();
+        transmissionDistance = 0;
+    }
+
+    /**
+     * 把节点ID追加到路由路径末尾
+     *
+     * @param nodeId 节点ID
+     */
+    void addPath(int nodeId) {
+        if (pathSize == path.length) {
+            path = Arrays.copyOf(path, pathSize << 1);
+        }
+        path[pathSize++] = nodeId;
+    }
+
+    /**
+     * @return 路由过程经过的节点数量
+     */
+    public int getPathSize() {
+        return pathSize;
+    }
+
+    /**
+     * @param index 节点在路由路径中的位置
+     * @return 节点ID
+     */
+    public int getPath(int index) {
+        return path[index];
+    }
+
+    /**
+     * 把邻居作为候选节点放进缓冲区，同时记录它在当前节点邻接表中的位置
+     *
+     * @param node 候选节点
+     * @param slot 候选节点在当前节点邻接表中的位置（见 {@link com.demo.study.model.Adjacency#neighbor(int)}）
+     */
+    public void addCandidate(Node node, int slot) {
+        int size = candidates.size();
+        if (size == candidateSlots.length) {
+            candidateSlots = Arrays.copyOf(candidateSlots, size << 1);
+        }
+        candidateSlots[size] = slot;
+        candidates.add(node);
+    }
+
+    /**
+     * @return 候选节点在当前节点邻接表中的位置，前 getCandidates().size() 个有效
+     */
+    public int[] getCandidateSlots() {
+        return candidateSlots;
+    }
+
+    /**
+     * @return 候选节点缓冲区，路由算法通过 {@link #addCandidate(Node, int)} 把找到的候选节点放进这里
+     */
+    public ArrayList<Node> getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * @return 选择下一跳时使用的传输距离
+     */
+    public int getTransmissionDistance() {
+        return transmissionDistance;
+    }
+
+    /**
+     * @param transmissionDistance 选择下一跳时使用的传输距离
+     */
+    public void setTransmissionDistance(int transmissionDistance) {
+        this.transmissionDistance = transmissionDistance;
+    }
+}
@@ -0,0 +1,25 @@
+package com.demo.study.model;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 分路传送（{@link RelayMode#VIRTUAL_THREAD}）用的虚拟线程执行器，每个任务一个虚拟线程，线程名称为“虚拟接力线程-序号”
+ * 只在java21配置（mvn -Pjava21）中编译到 META-INF/versions/21，{@link ThreadPoolConfig#virtualThreadExecutor()} 通过类名加载
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/14 10:20
+ */
+public final class VirtualThreadExecutor {
+
+    private VirtualThreadExecutor() {
+    }
+
+    /**
+     * @return 每个任务一个虚拟线程的执行器
+     */
+    public static ExecutorService create() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("虚拟接力线程-", 1).factory());
+    }
+}
@@ -0,0 +1,213 @@
+package com.demo.study.test1;
+
+import com.demo.study.model.*;
+import com.demo.study.model.algo.Algorithm;
+import com.demo.study.model.algo.MyRouteAlgo;
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 邻里关系建立的正确性与耗时对比
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/3 11:02
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+public class Test5 {
+    /**
+     * 网格索引建立的邻居集合与逐个比较建立的邻居集合（内容和顺序）完全一致
+     */
+    @Test
+    void test1() {
+        NodeConfig config = new NodeConfig();
+        List<Node> nodes = MyUtils.generateNodes(500, 500, 500, 2000, config.getEnergy());
+        // 让部分节点能量不足，验证能量过滤
+        for (int i = 0; i < nodes.size(); i += 7) {
+            nodes.get(i).setEnergy(config.getEnergyByOptical() - 1);
+        }
+
+        long start = System.nanoTime();
+        MyUtils.initNeighbouringNodesForAll(nodes, config.getOpticalDistance(), config.getEnergyByOptical(), 0);
+        MyUtils.initNeighbouringNodesForAll(nodes, config.getAcousticDistance(), config.getEnergyByAcoustic(), 1);
+        MyUtils.initNeighbouringNodesForAll(nodes, 150, config.getEnergyByAcoustic(), 2);
+        log.info("网格索引耗时: {}ms", (System.nanoTime() - start) / 1_000_000);
+
+        start = System.nanoTime();
+        for (Node node : nodes) {
+            Assertions.assertEquals(neighbors(nodes, node, config.getOpticalDistance(), config.getEnergyByOptical()),
+                    node.getOpticalNeighborNodes());
+            Assertions.assertEquals(neighbors(nodes, node, config.getAcousticDistance(), config.getEnergyByAcoustic()),
+                    node.getAcousticNeighborNodes());
+            Assertions.assertEquals(neighbors(nodes, node, 150, config.getEnergyByAcoustic()),
+                    node.getContinueNodes());
+        }
+        log.info("逐个比较耗时: {}ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 一次遍历建立的三种邻居集合与分三次建立的结果完全一致
+     */
+    @Test
+    void test2() {
+        NodeConfig config = new NodeConfig();
+        Algorithm algorithm = new MyRouteAlgo();
+        List<Node> nodes = MyUtils.generateNodes(500, 500, 500, 5000, config.getEnergy());
+        for (int i = 0; i < nodes.size(); i += 5) {
+            nodes.get(i).setEnergy(config.getEnergyByAcoustic() - 1);
+        }
+        List<Node> copies = Lists.newArrayListWithCapacity(nodes.size());
+        for (Node node : nodes) {
+            Node copy = MyUtils.initNode(node.getId(), node.getPoint(), node.getEnergy());
+            copies.add(copy);
+        }
+
+        long start = System.nanoTime();
+        MyUtils.initNeighbouringNodesForAll(nodes, config.getOpticalDistance(), config.getEnergyByOptical(), 0);
+        MyUtils.initNeighbouringNodesForAll(nodes, config.getAcousticDistance(), config.getEnergyByAcoustic(), 1);
+        MyUtils.initNeighbouringNodesForAll(nodes, algorithm.getDownDistance(), config.getEnergyByAcoustic(), 2);
+        log.info("分三次建立耗时: {}ms", (System.nanoTime() - start) / 1_000_000);
+
+        start = System.nanoTime();
+        new NeighborBuilder(config, algorithm).build(copies);
+        log.info("一次遍历建立耗时: {}ms", (System.nanoTime() - start) / 1_000_000);
+
+        assertSameNeighbors(nodes, copies);
+    }
+
+    /**
+     * 并行建立的邻居集合与顺序建立的结果完全一致
+     */
+    @Test
+    void test3() {
+        NodeConfig config = new NodeConfig();
+        Algorithm algorithm = new MyRouteAlgo();
+        List<Node> nodes = MyUtils.generateNodes(2000, 2000, 2000, 20000, config.getEnergy());
+        List<Node> copies = Lists.newArrayListWithCapacity(nodes.size());
+        for (Node node : nodes) {
+            copies.add(MyUtils.initNode(node.getId(), node.getPoint(), node.getEnergy()));
+        }
+        NeighborBuilder builder = new NeighborBuilder(config, algorithm);
+
+        long start = System.nanoTime();
+        builder.build(nodes);
+        log.info("顺序建立耗时: {}ms", (System.nanoTime() - start) / 1_000_000);
+
+        start = System.nanoTime();
+        builder.buildParallel(copies);
+        log.info("并行建立耗时: {}ms, 并行度: {}", (System.nanoTime() - start) / 1_000_000,
+                ThreadPoolConfig.topologyPool().getParallelism());
+
+        assertSameNeighbors(nodes, copies);
+    }
+
+    /**
+     * 增加节点后增量更新的邻居集合与重新建立的结果完全一致（包括以新ID放回的目标节点）
+     */
+    @Test
+    void test4() {
+        NodeConfig config = new NodeConfig();
+        Algorithm algorithm = new MyRouteAlgo();
+        GenerateConfig generateConfig = GenerateConfig.builder()
+                .x(500)
+                .y(500)
+                .z(500)
+                .gapDistance(50)
+                .aroundNodeSize(5)
+                .initEnergy(config.getEnergy())
+                .build();
+        List<Node> nodes = MyUtils.generateNodes2(generateConfig);
+        NeighborBuilder builder = new NeighborBuilder(config, algorithm);
+        builder.build(nodes);
+
+        long incrementalTime = 0;
+        long rebuildTime = 0;
+        while (nodes.size() < 2000) {
+            int previousSize = nodes.size();
+            MyUtils.enlarge(generateConfig, nodes, 20);
+            MyUtils.resetNodes(nodes, config.getEnergy());
+            long start = System.nanoTime();
+            builder.extend(nodes, previousSize);
+            incrementalTime += System.nanoTime() - start;
+
+            List<Node> copies = Lists.newArrayListWithCapacity(nodes.size());
+            for (Node node : nodes) {
+                copies.add(MyUtils.initNode(node.getId(), node.getPoint(), node.getEnergy()));
+            }
+            start = System.nanoTime();
+            new NeighborBuilder(config, algorithm).build(copies);
+            rebuildTime += System.nanoTime() - start;
+            assertSameNeighbors(copies, nodes);
+        }
+        log.info("节点数: {}, 增量更新总耗时: {}ms, 重新建立总耗时: {}ms",
+                nodes.size(), incrementalTime / 1_000_000, rebuildTime / 1_000_000);
+    }
+
+    /**
+     * 拓扑中缓存的边距离和到目标节点的距离算出的cosine值与直接计算的结果完全一致
+     */
+    @Test
+    void test5() {
+        NodeConfig config = new NodeConfig();
+        List<Node> nodes = MyUtils.generateNodes(500, 500, 500, 2000, config.getEnergy());
+        new NeighborBuilder(config, new MyRouteAlgo()).build(nodes);
+        Topology topology = Topology.of(nodes);
+        Node destinationNode = nodes.get(nodes.size() - 1);
+        double[] destinationDistances = topology.distancesTo(destinationNode.getId());
+        Assertions.assertSame(destinationDistances, topology.distancesTo(destinationNode.getId()));
+
+        Adjacency adjacency = topology.getOpticalAdjacency();
+        for (Node node : nodes) {
+            if (node == destinationNode) {
+                continue;
+            }
+            Assertions.assertEquals(MyUtils.distance(node, destinationNode), destinationDistances[node.getId()]);
+            for (int k = adjacency.start(node.getId()), end = adjacency.end(node.getId()); k < end; k++) {
+                Node neighborNode = nodes.get(adjacency.neighbor(k));
+                Assertions.assertEquals(MyUtils.distance(node, neighborNode), adjacency.distance(k));
+                Assertions.assertEquals(MyUtils.cosine(node, neighborNode, destinationNode),
+                        MyUtils.cosine(destinationDistances[neighborNode.getId()],
+                                destinationDistances[node.getId()], adjacency.distance(k)));
+            }
+        }
+    }
+
+    /**
+     * 两组位置相同的节点的三种邻居集合（按节点ID比较）内容和顺序一致
+     */
+    static void assertSameNeighbors(List<Node> expected, List<Node> actual) {
+        Assertions.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(ids(expected.get(i).getOpticalNeighborNodes()), ids(actual.get(i).getOpticalNeighborNodes()));
+            Assertions.assertEquals(ids(expected.get(i).getAcousticNeighborNodes()), ids(actual.get(i).getAcousticNeighborNodes()));
+            Assertions.assertEquals(ids(expected.get(i).getContinueNodes()), ids(actual.get(i).getContinueNodes()));
+        }
+    }
+
+    private static List<Integer> ids(List<Node> nodes) {
+        return nodes.stream().map(Node::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * 逐个比较所有节点，找出指定节点的邻居
+     */
+    private List<Node> neighbors(List<Node> nodes, Node node, int transmissionDistance, int minTransmissionEnergy) {
+        List<Node> neighbors = Lists.newArrayList();
+        for (Node other : nodes) {
+            if (other != node
+                    && other.getEnergy() >= minTransmissionEnergy
+                    && MyUtils.isNeighbor(node, other, transmissionDistance)) {
+                neighbors.add(other);
+            }
+        }
+        return neighbors;
+    }
+}
@@ -0,0 +1,848 @@
+package com.demo.study.test1;
+
+import com.demo.study.SimulationListener;
+import com.demo.study.SimulationRunner;
+import com.demo.study.model.*;
+import com.demo.study.model.algo.Algorithm;
+import com.demo.study.model.algo.DsAlgo;
+import com.demo.study.model.algo.MyRouteAlgo;
+import com.demo.study.model.algo.RouteScratch;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 路由过程的正确性与耗时对比、随机数流的可复现性、节点状态的恢复、分路配置的共享、批量路由、多轮模拟与逐轮统计、延迟分布、每一跳分配的内存
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/8 21:30
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+public class Test6 {
+    /**
+     * 只用int数组记录路由路径时，每一轮的路由结果、跳数和能量消耗与写入routingPath时完全一致
+     */
+    @Test
+    void test1() {
+        NodeConfig config = new NodeConfig();
+        Algorithm algorithm = new MyRouteAlgo();
+        GenerateConfig generateConfig = GenerateConfig.builder()
+                .x(500)
+                .y(500)
+                .z(500)
+                .gapDistance(50)
+                .aroundNodeSize(5)
+                .initEnergy(config.getEnergy())
+                .build();
+        List<Node> nodes = MyUtils.generateNodes2(generateConfig);
+        List<Node> copies = Lists.newArrayListWithCapacity(nodes.size());
+        for (Node node : nodes) {
+            copies.add(MyUtils.initNode(node.getId(), node.getPoint(), node.getEnergy()));
+        }
+        new NeighborBuilder(config, algorithm).build(nodes);
+        new NeighborBuilder(config, algorithm).build(copies);
+
+        SimulationConfig listConfig = simulationConfig(nodes, config, algorithm);
+        SimulationConfig primitiveConfig = simulationConfig(copies, config, algorithm);
+        primitiveConfig.setPrimitivePathFlag(true);
+
+        int successCount = 0;
+        long listTime = 0;
+        long primitiveTime = 0;
+        for (int i = 0; i < 2000; i++) {
+            listConfig.setRoutingPath(Lists.newArrayList());
+            listConfig.setRoutingPaths(Lists.newArrayList());
+            listConfig.getRoutingPaths().add(listConfig.getRoutingPath());
+            long start = System.nanoTime();
+            boolean listResult = route(listConfig, nodes, config);
+            listTime += System.nanoTime() - start;
+
+            primitiveConfig.setHopCount(new AtomicInteger());
+            start = System.nanoTime();
+            boolean primitiveResult = route(primitiveConfig, copies, config);
+            primitiveTime += System.nanoTime() - start;
+
+            Assertions.assertEquals(listResult, primitiveResult);
+            Assertions.assertEquals(listConfig.getRoutingPath().size(), primitiveConfig.getHopCount().get());
+            Assertions.assertEquals(listConfig.getConsumeTime().getHundredths(), primitiveConfig.getConsumeTime().getHundredths());
+            Assertions.assertEquals(listConfig.getConsumeEnergy().sum(), primitiveConfig.getConsumeEnergy().sum());
+            Assertions.assertEquals(listConfig.getFailureReasons().toMap(), primitiveConfig.getFailureReasons().toMap());
+            Assertions.assertNull(primitiveConfig.getRoutingPath());
+            if (listResult) {
+                successCount++;
+            }
+        }
+        Assertions.assertTrue(successCount > 0);
+        log.info("成功轮数: {}, 写入routingPath耗时: {}ms, 只用int数组耗时: {}ms",
+                successCount, listTime / 1_000_000, primitiveTime / 1_000_000);
+    }
+
+    /**
+     * 定点数计算的传输时间与BigDecimal保留两位小数（HALF_UP）的结果完全一致，包括正好在进位边界上的整数距离
+     */
+    @Test
+    void test2() {
+        NodeConfig config = new NodeConfig();
+        int[] speeds = {config.getOpticalSpeed(), config.getAcousticSpeed(), 1, 3, 7, 40, 333, 1500};
+        for (int speed : speeds) {
+            DelayAccumulator accumulator = new DelayAccumulator();
+            BigDecimal sum = BigDecimal.ZERO;
+            // 坐标是整数，距离的平方也是整数
+            for (long squared = 1; squared <= 500 * 500; squared++) {
+                double distance = Math.sqrt(squared);
+                BigDecimal consumeTime = BigDecimal.valueOf(distance)
+                        .divide(BigDecimal.valueOf(speed), DelayAccumulator.SCALE, RoundingMode.HALF_UP);
+                Assertions.assertEquals(consumeTime, DelayAccumulator.toBigDecimal(DelayAccumulator.toHundredths(distance, speed)),
+                        "distance: " + distance + ", speed: " + speed);
+                accumulator.add(distance, speed);
+                sum = sum.add(consumeTime);
+            }
+            Assertions.assertEquals(sum, accumulator.toBigDecimal());
+        }
+    }
+
+    /**
+     * 分包后的子包与原始数据包共享字节数组，按序号拼起来的数据与原始数据一致（包括被拆开的多字节字符）
+     */
+    @Test
+    void test3() {
+        NodeConfig config = new NodeConfig();
+        List<Node> nodes = MyUtils.generateNodes(500, 500, 500, 3, config.getEnergy());
+        String data = "Hello, world! 水下光声混合网络的路由模拟，数据包会被拆分成多个子包。";
+        TreeMap<Integer, Packet> subPackets = MyUtils.getSubPackets(nodes.get(0), nodes.get(2), data, config.getBytesByOptical());
+        Packet firstSubPacket = subPackets.firstEntry().getValue();
+        int totalBytes = 0;
+        for (Packet subPacket : subPackets.values()) {
+            Assertions.assertTrue(subPacket.getData().size() <= config.getBytesByOptical());
+            Assertions.assertTrue(subPacket.getData().isSharedWith(firstSubPacket.getData()));
+            totalBytes += subPacket.getData().size();
+        }
+        Assertions.assertEquals(firstSubPacket.getTotalBytes(), totalBytes);
+        Assertions.assertEquals(data, MyUtils.decodeData(subPackets));
+
+        // 复制数据包时直接共享数据
+        Packet duplicate = Converter.INSTANCE.convertToPacket(firstSubPacket);
+        Assertions.assertSame(firstSubPacket.getData(), duplicate.getData());
+    }
+
+    /**
+     * 乱序、重复收到子包时，只有所有序号都收到后才判断为收齐，收齐后的子包表按序号拼起来与原始数据一致
+     */
+    @Test
+    void test4() {
+        NodeConfig config = new NodeConfig();
+        List<Node> nodes = MyUtils.generateNodes(500, 500, 500, 3, config.getEnergy());
+        String data = "Hello, world! It's my first java program. I am very happy to share with you!";
+        List<Packet> subPackets = Lists.newArrayList(
+                MyUtils.getSubPackets(nodes.get(0), nodes.get(2), data, config.getBytesByOptical()).values());
+        Collections.reverse(subPackets);
+        // 重复收到第一个子包
+        subPackets.add(1, subPackets.get(0));
+
+        PacketAssembly assembly = new PacketAssembly(subPackets.get(0).getTotalBytes());
+        for (int i = 0; i < subPackets.size() - 1; i++) {
+            Assertions.assertFalse(assembly.add(subPackets.get(i)));
+            Assertions.assertTrue(assembly.contains(subPackets.get(i).getSequence()));
+        }
+        Assertions.assertTrue(assembly.add(subPackets.get(subPackets.size() - 1)));
+        Assertions.assertEquals(data.getBytes(StandardCharsets.UTF_8).length, assembly.getReceivedBytes());
+        Assertions.assertEquals(data, MyUtils.decodeData(assembly.toPacketMap()));
+    }
+
+    private static SimulationConfig simulationConfig(List<Node> nodes, NodeConfig config, Algorithm algorithm) {
+        nodes.get(0).setEnergy(config.getEnergy() * 200);
+        return SimulationConfig.builder()
+                .algorithm(algorithm)
+                .nodes(nodes)
+                .topology(Topology.of(nodes))
+                .config(config)
+                .unavailableInfo(new UnavailableInfo())
+                .failureReasons(new FailureStatistics())
+                .build();
+    }
+
+    /**
+     * 关闭分路传送，路由一轮后重置节点的缓冲区
+     */
+    private static boolean route(SimulationConfig simulationConfig, List<Node> nodes, NodeConfig config) {
+        TreeMap<Integer, Packet> sendingPackets = MyUtils.getSubPackets(nodes.get(0),
+                nodes.get(nodes.size() - 1),
+                "Hello, world! It's my first java program. I am very happy to share with you!",
+                config.getBytesByOptical());
+        simulationConfig.setSubPacketMapping(sendingPackets);
+        simulationConfig.setConsumeTime(new DelayAccumulator());
+        simulationConfig.setConsumeEnergy(new LongAdder());
+        boolean result = simulationConfig.getAlgorithm().route(simulationConfig);
+        MyUtils.resetNodes2(nodes);
+        return result;
+    }
+
+    /**
+     * 随机数种子相同时生成的节点和陷阱相同；每个重复实验用从根随机数流split得到的流并行生成陷阱，结果与顺序生成一致
+     */
+    @Test
+    void test5() {
+        NodeConfig config = new NodeConfig();
+        GenerateConfig generateConfig = GenerateConfig.builder()
+                .x(500)
+                .y(500)
+                .z(500)
+                .gapDistance(50)
+                .aroundNodeSize(5)
+                .initEnergy(config.getEnergy())
+                .build();
+        long seed = 20240815L;
+
+        List<Node> nodes1 = MyUtils.enlarge(new SplittableRandom(seed), generateConfig,
+                MyUtils.generateNodes2(new SplittableRandom(seed), generateConfig), 2);
+        List<Node> nodes2 = MyUtils.enlarge(new SplittableRandom(seed), generateConfig,
+                MyUtils.generateNodes2(new SplittableRandom(seed), generateConfig), 2);
+        Assertions.assertEquals(nodes1.size(), nodes2.size());
+        for (int i = 0; i < nodes1.size(); i++) {
+            Assertions.assertEquals(nodes1.get(i).getId(), nodes2.get(i).getId());
+            Assertions.assertEquals(nodes1.get(i).getPoint().toString(), nodes2.get(i).getPoint().toString());
+        }
+
+        // 顺序生成每个实验的陷阱
+        SplittableRandom random = new SplittableRandom(seed);
+        // 分路传送时两路的先后顺序不固定，只比较每100轮的投递成功次数和网络生命周期
+        List<String> expected = Lists.newArrayList();
+        for (int i = 0; i < 16; i++) {
+            expected.add(MyUtils.generateTraps(random.split(), 200, 7).toString());
+        }
+
+        // 并行生成每个实验的陷阱，每个实验的随机数流按相同的顺序split
+        random = new SplittableRandom(seed);
+        List<Replica> replicas = Lists.newArrayList();
+        for (int i = 0; i < 16; i++) {
+            replicas.add(Replica.builder()
+                    .algorithm(new MyRouteAlgo())
+                    .sweepPoint(i)
+                    .random(random.split())
+                    .template(nodes1)
+                    .neighborBuilderFactory(() -> new NeighborBuilder(config, new MyRouteAlgo()))
+                    .build());
+        }
+        List<String> results = new ReplicaRunner().run(replicas,
+                (replica, nodes) -> MyUtils.generateTraps(replica.getRandom(), 200, 7).toString());
+        Assertions.assertEquals(expected, results);
+    }
+
+    /**
+     * 每轮只恢复路由过程修改过的节点，恢复后所有节点的缓冲区为空并且可用（与重置所有节点的结果一致）；
+     * 恢复到快照后所有节点的能量与快照一致
+     */
+    @Test
+    void test6() {
+        NodeConfig config = new NodeConfig();
+        GenerateConfig generateConfig = GenerateConfig.builder()
+                .x(500)
+                .y(500)
+                .z(500)
+                .gapDistance(50)
+                .aroundNodeSize(5)
+                .initEnergy(config.getEnergy())
+                .build();
+        List<Node> nodes = MyUtils.generateNodes2(new SplittableRandom(20240815L), generateConfig);
+        new NeighborBuilder(config, new MyRouteAlgo()).build(nodes);
+        int[] energies = nodes.stream().mapToInt(Node::getEnergy).toArray();
+
+        NodeStates nodeStates = NodeStates.of(nodes);
+        SimulationConfig simulationConfig = SimulationConfig.builder()
+                .algorithm(new MyRouteAlgo())
+                .nodes(nodes)
+                .topology(Topology.of(nodes))
+                .config(config)
+                .primitivePathFlag(true)
+                .enableRelayFlag(true)
+                .relayMode(RelayMode.FORK_JOIN)
+                .dangerousDistance(generateConfig.getZ() / 2)
+                .nodeStates(nodeStates)
+                .unavailableInfo(new UnavailableInfo())
+                .failureReasons(new FailureStatistics())
+                .build();
+        int restored = 0;
+        int totalRound = 200;
+        for (int i = 0; i < totalRound; i++) {
+            TreeMap<Integer, Packet> sendingPackets = MyUtils.getSubPackets(nodes.get(0),
+                    nodes.get(nodes.size() - 1),
+                    "Hello, world! It's my first java program. I am very happy to share with you!",
+                    config.getBytesByOptical());
+            nodeStates.touch(nodes.get(0));
+            simulationConfig.setSubPacketMapping(sendingPackets);
+            simulationConfig.setConsumeTime(new DelayAccumulator());
+            simulationConfig.setConsumeEnergy(new LongAdder());
+            simulationConfig.setHopCount(new AtomicInteger());
+            simulationConfig.setDangerousFlag(false);
+            simulationConfig.setDangerousCount(1);
+            simulationConfig.getAlgorithm().route(simulationConfig);
+
+            restored += nodeStates.restoreRound();
+            for (Node node : nodes) {
+                Assertions.assertTrue(node.isAvailableFlag());
+                Assertions.assertTrue(node.getReceivedPackets().isEmpty());
+                // 缓冲区保留重组过程的表项，重组过程已经清空
+                Assertions.assertTrue(node.getIncompletePacketMapping().size() <= 1);
+                Assertions.assertTrue(node.getCompletePacketMapping().size() <= 1);
+                Assertions.assertTrue(node.getIncompletePacketMapping().values().stream().allMatch(PacketAssembly::isEmpty));
+                Assertions.assertTrue(node.getCompletePacketMapping().values().stream().allMatch(PacketAssembly::isEmpty));
+            }
+        }
+        log.info("节点数量: {}, 平均每轮恢复的节点数量: {}", nodes.size(), restored / totalRound);
+        Assertions.assertTrue(restored / totalRound < nodes.size());
+
+        nodeStates.restore();
+        for (Node node : nodes) {
+            Assertions.assertEquals(energies[node.getId()], node.getEnergy());
+            Assertions.assertEquals(1, node.getPacketIdGenerator().get());
+        }
+    }
+
+    /**
+     * 分路的配置直接引用共享的状态（不复制节点集合），只有分路独立的状态是新的对象
+     */
+    @Test
+    void test7() {
+        NodeConfig config = new NodeConfig();
+        List<Node> nodes = MyUtils.generateNodes(new SplittableRandom(20240815L), 500, 500, 500, 100, config.getEnergy());
+        List<List<Integer>> routingPaths = Lists.newArrayList();
+        SimulationConfig parent = SimulationConfig.builder()
+                .algorithm(new MyRouteAlgo())
+                .nodes(nodes)
+                .topology(Topology.of(nodes))
+                .config(config)
+                .enableRelayFlag(true)
+                .routingPath(Lists.newArrayList(0, 1))
+                .routingPaths(routingPaths)
+                .consumeTime(new DelayAccumulator())
+                .consumeEnergy(new LongAdder())
+                .hopCount(new AtomicInteger())
+                .unavailableInfo(new UnavailableInfo())
+                .unavailableLatch(new AtomicInteger(3))
+                .failureReasons(new FailureStatistics())
+                .dangerousFlag(true)
+                .dangerousCount(2)
+                .build();
+        TreeMap<Integer, Packet> subPackets = Maps.newTreeMap();
+        SimulationConfig child = parent.fork(subPackets);
+
+        Assertions.assertSame(parent.getNodes(), child.getNodes());
+        Assertions.assertSame(parent.getTopology(), child.getTopology());
+        Assertions.assertSame(parent.getConsumeTime(), child.getConsumeTime());
+        Assertions.assertSame(parent.getConsumeEnergy(), child.getConsumeEnergy());
+        Assertions.assertSame(parent.getHopCount(), child.getHopCount());
+        Assertions.assertSame(parent.getUnavailableInfo(), child.getUnavailableInfo());
+        Assertions.assertSame(parent.getFailureReasons(), child.getFailureReasons());
+
+        Assertions.assertSame(subPackets, child.getSubPacketMapping());
+        Assertions.assertNotSame(parent.getRoutingPath(), child.getRoutingPath());
+        Assertions.assertTrue(child.getRoutingPath().isEmpty());
+        Assertions.assertNotSame(parent.getRoutingPaths(), child.getRoutingPaths());
+        Assertions.assertNull(child.getUnavailableLatch());
+        Assertions.assertTrue(child.isDangerousFlag());
+        Assertions.assertEquals(2, child.getDangerousCount());
+
+        // 修改分路的状态不影响当前配置
+        child.setDangerousCount(1);
+        Assertions.assertEquals(2, parent.getDangerousCount());
+    }
+
+    /**
+     * 批量路由只有一个数据流时，每一轮的结果与单独路由完全一致；多个数据流（不同的源节点）一次调用完成路由；
+     * 从同一个源节点出发的数据流每一跳都在同一个节点相遇，只有第一个数据流查找候选节点和选择下一跳，所有数据流走同一条路径；
+     * 节点、节点配置、能量账本、分路传送开关不同的数据流被拒绝
+     */
+    @Test
+    void test8() {
+        NodeConfig config = new NodeConfig();
+        Algorithm algorithm = new MyRouteAlgo();
+        GenerateConfig generateConfig = GenerateConfig.builder()
+                .x(500)
+                .y(500)
+                .z(500)
+                .gapDistance(50)
+                .aroundNodeSize(5)
+                .initEnergy(config.getEnergy())
+                .build();
+        List<Node> nodes = MyUtils.generateNodes2(new SplittableRandom(20240816L), generateConfig);
+        List<Node> copies = Lists.newArrayListWithCapacity(nodes.size());
+        for (Node node : nodes) {
+            copies.add(MyUtils.initNode(node.getId(), node.getPoint(), node.getEnergy()));
+        }
+        new NeighborBuilder(config, algorithm).build(nodes);
+        new NeighborBuilder(config, algorithm).build(copies);
+
+        SimulationConfig singleConfig = simulationConfig(nodes, config, algorithm);
+        singleConfig.setPrimitivePathFlag(true);
+        SimulationConfig batchConfig = simulationConfig(copies, config, algorithm);
+        batchConfig.setPrimitivePathFlag(true);
+        for (int i = 0; i < 1000; i++) {
+            singleConfig.setHopCount(new AtomicInteger());
+            boolean singleResult = route(singleConfig, nodes, config);
+
+            batchConfig.setHopCount(new AtomicInteger());
+            batchConfig.setSubPacketMapping(MyUtils.getSubPackets(copies.get(0),
+                    copies.get(copies.size() - 1),
+                    "Hello, world! It's my first java program. I am very happy to share with you!",
+                    config.getBytesByOptical()));
+            batchConfig.setConsumeTime(new DelayAccumulator());
+            batchConfig.setConsumeEnergy(new LongAdder());
+            List<Boolean> batchResults = algorithm.routeBatch(Collections.singletonList(batchConfig));
+            MyUtils.resetNodes2(copies);
+
+            Assertions.assertEquals(Collections.singletonList(singleResult), batchResults);
+            Assertions.assertEquals(singleConfig.getHopCount().get(), batchConfig.getHopCount().get());
+            Assertions.assertEquals(singleConfig.getConsumeTime().getHundredths(), batchConfig.getConsumeTime().getHundredths());
+            Assertions.assertEquals(singleConfig.getConsumeEnergy().sum(), batchConfig.getConsumeEnergy().sum());
+            Assertions.assertEquals(singleConfig.getFailureReasons().toMap(), batchConfig.getFailureReasons().toMap());
+        }
+        for (Node node : nodes) {
+            Assertions.assertEquals(node.getEnergy(), copies.get(node.getId()).getEnergy());
+        }
+
+        // 多个源节点同时向终点发送数据
+        List<SimulationConfig> flows = Lists.newArrayList();
+        for (int source = 0; source < 8; source++) {
+            SimulationConfig flow = simulationConfig(copies, config, algorithm);
+            flow.setPrimitivePathFlag(true);
+            flow.setHopCount(new AtomicInteger());
+            flow.setSubPacketMapping(MyUtils.getSubPackets(copies.get(source),
+                    copies.get(copies.size() - 1),
+                    "Hello, world! It's my first java program. I am very happy to share with you!",
+                    config.getBytesByOptical()));
+            flow.setConsumeTime(new DelayAccumulator());
+            flow.setConsumeEnergy(new LongAdder());
+            flows.add(flow);
+        }
+        List<Boolean> results = algorithm.routeBatch(flows);
+        Assertions.assertEquals(flows.size(), results.size());
+        for (int i = 0; i < flows.size(); i++) {
+            if (results.get(i)) {
+                Assertions.assertTrue(flows.get(i).getHopCount().get() >= 2);
+            }
+        }
+        log.info("多个数据流的路由结果: {}", results);
+        MyUtils.resetNodes2(copies);
+
+        // 同一个源节点的数据流每一跳都在同一个节点相遇，共享候选节点和下一跳
+        AtomicInteger searchCount = new AtomicInteger();
+        AtomicInteger measureCount = new AtomicInteger();
+        Algorithm countingAlgorithm = new MyRouteAlgo() {
+            @Override
+            public boolean searchCandidates(SimulationConfig param, Node currentNode, Node destinationNode, RouteScratch scratch) {
+                searchCount.incrementAndGet();
+                return super.searchCandidates(param, currentNode, destinationNode, scratch);
+            }
+
+            @Override
+            public int getNodeIdWithMaxMeasure(SimulationConfig param, List<Node> candidateNodes, int[] candidateSlots,
+                                               Node currentNode, Node destinationNode, int transmissionDistance) {
+                measureCount.incrementAndGet();
+                return super.getNodeIdWithMaxMeasure(param, candidateNodes, candidateSlots, currentNode, destinationNode,
+                        transmissionDistance);
+            }
+        };
+        // 单独路由时能经过中间节点到达终点的第一个源节点，每次路由后恢复节点的能量
+        NodeStates nodeStates = NodeStates.of(copies);
+        int source = 0;
+        SimulationConfig single;
+        while (true) {
+            single = sharedFlow(copies, source, config, countingAlgorithm, nodeStates);
+            boolean singleResult = countingAlgorithm.routeBatch(Collections.singletonList(single)).get(0);
+            nodeStates.restore();
+            if (singleResult && single.getRoutingPath().size() > 2) {
+                break;
+            }
+            source++;
+            searchCount.set(0);
+            measureCount.set(0);
+        }
+        int singleSearchCount = searchCount.getAndSet(0);
+        int singleMeasureCount = measureCount.getAndSet(0);
+
+        List<SimulationConfig> sharedFlows = Lists.newArrayList(sharedFlow(copies, source, config, countingAlgorithm, nodeStates),
+                sharedFlow(copies, source, config, countingAlgorithm, nodeStates), sharedFlow(copies, source, config, countingAlgorithm, nodeStates));
+        Assertions.assertEquals(Lists.newArrayList(true, true, true), countingAlgorithm.routeBatch(sharedFlows));
+        // 只有第一个数据流查找候选节点和选择下一跳
+        Assertions.assertEquals(singleSearchCount, searchCount.get());
+        Assertions.assertEquals(singleMeasureCount, measureCount.get());
+        for (SimulationConfig flow : sharedFlows) {
+            Assertions.assertEquals(single.getRoutingPath(), flow.getRoutingPath());
+            Assertions.assertEquals(single.getConsumeEnergy().sum(), flow.getConsumeEnergy().sum());
+        }
+        log.info("共享下一跳的路由路径: {}, 查找候选节点的次数: {}", single.getRoutingPath(), searchCount.get());
+        nodeStates.restore();
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> algorithm.routeBatch(Lists.newArrayList(simulationConfig(nodes, config, algorithm),
+                        simulationConfig(copies, config, algorithm))));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> algorithm.routeBatch(Lists.newArrayList(sharedFlow(copies, 0, config, algorithm, nodeStates),
+                        sharedFlow(copies, 0, new NodeConfig(), algorithm, nodeStates))));
+        SimulationConfig ledgerFlow = sharedFlow(copies, 0, config, algorithm, nodeStates);
+        ledgerFlow.setEnergyLedger(EnergyLedger.of(copies));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> algorithm.routeBatch(Lists.newArrayList(sharedFlow(copies, 0, config, algorithm, nodeStates), ledgerFlow)));
+        SimulationConfig relayFlow = sharedFlow(copies, 0, config, algorithm, nodeStates);
+        relayFlow.setEnableRelayFlag(true);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> algorithm.routeBatch(Lists.newArrayList(sharedFlow(copies, 0, config, algorithm, nodeStates), relayFlow)));
+    }
+
+    /**
+     * 从源节点向最后一个节点发送数据的数据流，记录经过的节点和修改过的节点
+     */
+    private static SimulationConfig sharedFlow(List<Node> nodes, int source, NodeConfig config, Algorithm algorithm,
+                                               NodeStates nodeStates) {
+        SimulationConfig flow = simulationConfig(nodes, config, algorithm);
+        flow.setRoutingPath(Lists.newArrayList());
+        flow.setNodeStates(nodeStates);
+        flow.setSubPacketMapping(MyUtils.getSubPackets(nodes.get(source),
+                nodes.get(nodes.size() - 1),
+                "Hello, world! It's my first java program. I am very happy to share with you!",
+                config.getBytesByOptical()));
+        flow.setConsumeTime(new DelayAccumulator());
+        flow.setConsumeEnergy(new LongAdder());
+        return flow;
+    }
+
+    /**
+     * SimulationRunner：每轮的结果与每100轮的统计一致，监听器收到每一轮的结果，
+     * 随机数种子相同时并行模拟与顺序模拟的结果一致
+     */
+    @Test
+    void test9() {
+        NodeConfig config = new NodeConfig();
+        GenerateConfig generateConfig = GenerateConfig.builder()
+                .x(500)
+                .y(500)
+                .z(500)
+                .gapDistance(50)
+                .aroundNodeSize(5)
+                .initEnergy(config.getEnergy())
+                .build();
+        long seed = 20240816L;
+        int totalRound = 300;
+        List<Node> template = MyUtils.generateNodes2(new SplittableRandom(seed), generateConfig);
+
+        // 0：失败，1：成功
+        List<Integer> routeResults = Lists.newArrayList();
+        SimulationRunner simulationRunner = new SimulationRunner().addListener(new SimulationListener() {
+            @Override
+            public void onRound(SimulationConfig simulationConfig, int round, boolean success, long routeNanos) {
+                Assertions.assertEquals(routeResults.size() + 1, round);
+                routeResults.add(success ? 1 : 0);
+            }
+        });
+
+        List<Replica> replicas = replicas(template, config, seed);
+        SimulateRouteConfig simulateRouteConfig = simulateRouteConfig(replicas.get(0), replicas.get(0).isolate(), config, totalRound);
+        simulateRouteConfig.setPdrResults(Lists.newArrayList(Lists.newArrayList(), Lists.newArrayList()));
+        SimulationResult result = simulationRunner.run(simulateRouteConfig, replicas.get(0).getAlgorithm());
+
+        Assertions.assertEquals(totalRound, routeResults.size());
+        Assertions.assertEquals(routeResults.stream().mapToInt(Integer::intValue).sum(), result.getSuccessCount());
+        Assertions.assertEquals(result.getSuccessCount(), result.getDelay().getCount());
+        Assertions.assertEquals(result.getSuccessCount(), result.getDelayHistogram().getTotalCount());
+        Assertions.assertEquals(totalRound, result.getRouteHistogram().getTotalCount());
+        Assertions.assertTrue(result.getHopHistogram().getTotalCount() >= result.getHop().getMean() * result.getSuccessCount());
+        Assertions.assertEquals(totalRound, result.getSuccessCount() + result.getFailCount());
+        Assertions.assertEquals(totalRound / SimulationRunner.WINDOW, result.getWindowPdrs().size());
+        Assertions.assertEquals(totalRound / SimulationRunner.WINDOW, result.getResidualEnergyPercents().size());
+        Assertions.assertEquals(result.getSuccessCount(), result.getWindowPdrs().stream().mapToInt(Integer::intValue).sum());
+        Assertions.assertEquals(Collections.singletonList(result.getAveragePdr()), simulateRouteConfig.getPdrResults().get(1));
+        Assertions.assertTrue(simulateRouteConfig.getPdrResults().get(0).isEmpty());
+        for (int i = result.getLifetime(); i < totalRound; i++) {
+            Assertions.assertEquals(0, routeResults.get(i).intValue());
+        }
+        if (result.getLifetime() > 0) {
+            Assertions.assertEquals(1, routeResults.get(result.getLifetime() - 1).intValue());
+        }
+
+        // 顺序模拟
+        // 分路传送时两路的先后顺序不固定，只比较每100轮的投递成功次数和网络生命周期
+        List<String> expected = Lists.newArrayList();
+        for (Replica replica : replicas(template, config, seed)) {
+            SimulationResult sequential = new SimulationRunner()
+                    .run(simulateRouteConfig(replica, replica.isolate(), config, totalRound), replica.getAlgorithm());
+            expected.add(sequential.getWindowPdrs() + ", " + sequential.getLifetime());
+        }
+
+        // 并行模拟
+        List<SimulationResult> results = new SimulationRunner().runAll(replicas(template, config, seed),
+                (replica, nodes) -> simulateRouteConfig(replica, nodes, config, totalRound));
+        for (int i = 0; i < results.size(); i++) {
+            Assertions.assertEquals(expected.get(i), results.get(i).getWindowPdrs() + ", " + results.get(i).getLifetime());
+        }
+    }
+
+    /**
+     * 同一个种子按相同的顺序split出每个实验的随机数流
+     */
+    private static List<Replica> replicas(List<Node> template, NodeConfig config, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Replica> replicas = Lists.newArrayList();
+        for (int i = 0; i < 4; i++) {
+            replicas.add(Replica.builder()
+                    .algorithm(new MyRouteAlgo())
+                    .sweepPoint(i)
+                    .enableRelayFlag(true)
+                    .random(random.split())
+                    .template(template)
+                    .neighborBuilderFactory(() -> new NeighborBuilder(config, new MyRouteAlgo()))
+                    .build());
+        }
+        return replicas;
+    }
+
+    private static SimulateRouteConfig simulateRouteConfig(Replica replica, List<Node> nodes, NodeConfig config, int totalRound) {
+        nodes.get(0).setEnergy(config.getEnergy() * 200);
+        TreeMap<Integer, Packet> sendingPackets = MyUtils.getSubPackets(nodes.get(0),
+                nodes.get(nodes.size() - 1),
+                "Hello, world! It's my first java program. I am very happy to share with you!",
+                config.getBytesByOptical());
+        SimulationConfig simulationConfig = SimulationConfig.builder()
+                .nodes(nodes)
+                .topology(Topology.of(nodes))
+                .config(config)
+                .energyLedger(EnergyLedger.of(nodes))
+                .enableRelayFlag(replica.isEnableRelayFlag())
+                .unavailableInfo(new UnavailableInfo())
+                .failureReasons(new FailureStatistics())
+                .build();
+        return SimulateRouteConfig.builder()
+                .x(500)
+                .y(500)
+                .z(500)
+                .totalRound(totalRound)
+                .config(config)
+                .nodes(nodes)
+                .sendingPackets(sendingPackets)
+                .trapFactory(MyUtils.trapFactory(replica.getRandom(), sendingPackets.size()))
+                .simulationConfig(simulationConfig)
+                .build();
+    }
+
+    /**
+     * RoundStatistics逐轮累计的每100轮统计与保存每一轮结果后再分段计算的值一致，OnlineStatistics合并后与顺序累计的值一致
+     */
+    @Test
+    void test10() {
+        SplittableRandom random = new SplittableRandom(20240816L);
+        int totalRound = 1050;
+        int window = 100;
+        List<Integer> routeResults = Lists.newArrayList();
+        List<Long> hundredths = Lists.newArrayList();
+        List<Integer> energies = Lists.newArrayList();
+        List<Integer> hops = Lists.newArrayList();
+        RoundStatistics statistics = new RoundStatistics(window);
+        OnlineStatistics first = new OnlineStatistics();
+        OnlineStatistics second = new OnlineStatistics();
+        for (int i = 0; i < totalRound; i++) {
+            // 第300~399轮全部失败
+            boolean success = (i < 300 || i >= 400) && random.nextInt(10) < 7;
+            long time = random.nextInt(100_000);
+            int energy = random.nextInt(1000);
+            int hop = random.nextInt(1, 30);
+            routeResults.add(success ? 1 : 0);
+            hundredths.add(success ? time : 0);
+            energies.add(success ? energy : 0);
+            hops.add(success ? hop : 0);
+            Assertions.assertEquals((i + 1) % window == 0, statistics.add(success, time, energy, hop));
+            if (success) {
+                (i < totalRound / 3 ? first : second).add(energy);
+            }
+        }
+
+        int lifetime = 0;
+        for (int i = 0; i < totalRound / window; i++) {
+            int success = 0;
+            long time = 0;
+            int energy = 0;
+            int hop = 0;
+            for (int j = i * window; j < i * window + window; j++) {
+                success += routeResults.get(j);
+                time += hundredths.get(j);
+                energy += energies.get(j);
+                hop += hops.get(j);
+            }
+            Assertions.assertEquals(success, statistics.getWindowPdrs().get(i).intValue());
+            if (success == 0) {
+                Assertions.assertEquals(BigDecimal.ZERO, statistics.getWindowConsumeTimes().get(i));
+                continue;
+            }
+            Assertions.assertEquals(DelayAccumulator.toBigDecimal(time).divide(BigDecimal.valueOf(success), 2, RoundingMode.HALF_UP),
+                    statistics.getWindowConsumeTimes().get(i));
+            Assertions.assertEquals(energy / success, statistics.getWindowConsumeEnergies().get(i).intValue());
+            Assertions.assertEquals(hop / success, statistics.getWindowHops().get(i).intValue());
+        }
+        for (int i = 0; i < totalRound; i++) {
+            if (routeResults.get(i) == 1) {
+                lifetime = i + 1;
+            }
+        }
+        Assertions.assertEquals(totalRound / window, statistics.getWindowPdrs().size());
+        Assertions.assertEquals(0, statistics.getWindowPdrs().get(3).intValue());
+        Assertions.assertEquals(lifetime, statistics.getLastSuccessRound());
+        Assertions.assertEquals(totalRound, statistics.getSuccessCount() + statistics.getFailCount());
+
+        double mean = 0;
+        for (int i = 0; i < totalRound; i++) {
+            mean += energies.get(i);
+        }
+        mean /= statistics.getSuccessCount();
+        double variance = 0;
+        for (int i = 0; i < totalRound; i++) {
+            if (routeResults.get(i) == 1) {
+                variance += (energies.get(i) - mean) * (energies.get(i) - mean);
+            }
+        }
+        variance /= statistics.getSuccessCount() - 1;
+        Assertions.assertEquals(statistics.getSuccessCount(), statistics.getEnergy().getCount());
+        Assertions.assertEquals(mean, statistics.getEnergy().getMean(), 1e-6);
+        Assertions.assertEquals(variance, statistics.getEnergy().getVariance(), 1e-6);
+
+        first.merge(second);
+        Assertions.assertEquals(statistics.getEnergy().getCount(), first.getCount());
+        Assertions.assertEquals(statistics.getEnergy().getMean(), first.getMean(), 1e-6);
+        Assertions.assertEquals(statistics.getEnergy().getVariance(), first.getVariance(), 1e-6);
+        Assertions.assertEquals(statistics.getEnergy().getMin(), first.getMin());
+        Assertions.assertEquals(statistics.getEnergy().getMax(), first.getMax());
+    }
+
+    /**
+     * LatencyHistogram的分位数与排序后的精确值的相对误差不超过1/64，小于128的值没有误差，合并后与一起记录的结果一致
+     */
+    @Test
+    void test11() {
+        SplittableRandom random = new SplittableRandom(20240817L);
+        LatencyHistogram histogram = new LatencyHistogram();
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        List<Long> values = Lists.newArrayList();
+        for (int i = 0; i < 100_000; i++) {
+            // 大部分值集中在几百，少量长尾
+            long value = i % 1000 == 0 ? random.nextLong(1_000_000, 100_000_000) : random.nextLong(100, 1000);
+            values.add(value);
+            histogram.record(value);
+            (i % 2 == 0 ? first : second).record(value);
+        }
+        Collections.sort(values);
+        for (double percentile : new double[]{50, 99, 99.9, 100}) {
+            long expected = values.get((int) Math.ceil(percentile / 100 * values.size()) - 1);
+            long actual = histogram.getValueAtPercentile(percentile);
+            Assertions.assertTrue(actual >= expected, percentile + ": " + actual + " < " + expected);
+            Assertions.assertTrue(actual - expected <= expected / 64, percentile + ": " + actual + " - " + expected);
+        }
+        Assertions.assertEquals(values.get(values.size() - 1).longValue(), histogram.getMax());
+        Assertions.assertEquals(values.get(0).longValue(), histogram.getMin());
+
+        first.merge(second);
+        Assertions.assertEquals(histogram.getTotalCount(), first.getTotalCount());
+        Assertions.assertEquals(histogram.toString(), first.toString());
+
+        LatencyHistogram small = new LatencyHistogram();
+        for (int i = 0; i < 128; i++) {
+            small.record(i);
+        }
+        Assertions.assertEquals(63, small.getP50());
+        Assertions.assertEquals(126, small.getP99());
+        Assertions.assertEquals(0, new LatencyHistogram().getP999());
+        small.reset();
+        Assertions.assertEquals(0, small.getTotalCount());
+    }
+
+    /**
+     * 稳定状态下每发送一跳分配的内存：遍历数据包、接收端保存数据包不再创建迭代器、接收队列的节点和数据包副本，
+     * 恢复节点时清空重组过程并保留缓冲区的表项，接收端缓冲区也不再分配内存
+     */
+    @Test
+    void test12() {
+        Assumptions.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean, "不能统计线程分配的内存");
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(allocation.isThreadAllocatedMemorySupported(), "不能统计线程分配的内存");
+        allocation.setThreadAllocatedMemoryEnabled(true);
+
+        NodeConfig config = new NodeConfig();
+        Algorithm algorithm = new DsAlgo();
+        GenerateConfig generateConfig = GenerateConfig.builder()
+                .x(500)
+                .y(500)
+                .z(500)
+                .gapDistance(50)
+                .aroundNodeSize(5)
+                .initEnergy(config.getEnergy())
+                .build();
+        List<Node> nodes = MyUtils.generateNodes2(new SplittableRandom(20240818L), generateConfig);
+        new NeighborBuilder(config, algorithm).build(nodes);
+        nodes.get(0).setEnergy(config.getEnergy() * 200);
+        StringBuilder data = new StringBuilder();
+        while (data.length() < 20 * config.getBytesByOptical()) {
+            data.append("Hello, world! ");
+        }
+        TreeMap<Integer, Packet> sendingPackets = MyUtils.getSubPackets(nodes.get(0),
+                nodes.get(nodes.size() - 1),
+                data.substring(0, 20 * config.getBytesByOptical()),
+                config.getBytesByOptical());
+        SimulationConfig simulationConfig = SimulationConfig.builder()
+                .algorithm(algorithm)
+                .nodes(nodes)
+                .topology(Topology.of(nodes))
+                .config(config)
+                .primitivePathFlag(true)
+                .subPacketMapping(sendingPackets)
+                .consumeTime(new DelayAccumulator())
+                .consumeEnergy(new LongAdder())
+                .hopCount(new AtomicInteger())
+                .nodeStates(NodeStates.of(nodes))
+                .unavailableInfo(new UnavailableInfo())
+                .failureReasons(new FailureStatistics())
+                .build();
+
+        // 预热，让路由过程进入稳定状态（缓冲区扩容、JIT编译）
+        for (int i = 0; i < 20_000; i++) {
+            Assertions.assertTrue(algorithm.route(simulationConfig));
+            simulationConfig.getNodeStates().restore();
+        }
+
+        int totalRound = 10_000;
+        simulationConfig.getHopCount().set(0);
+        long threadId = Thread.currentThread().getId();
+        long start = allocation.getThreadAllocatedBytes(threadId);
+        int successCount = 0;
+        for (int i = 0; i < totalRound; i++) {
+            if (algorithm.route(simulationConfig)) {
+                successCount++;
+            }
+            simulationConfig.getNodeStates().restore();
+        }
+        long allocatedBytes = allocation.getThreadAllocatedBytes(threadId) - start;
+
+        Assertions.assertEquals(totalRound, successCount);
+        // 路由路径包括源节点，每轮发送的跳数比经过的节点数少1
+        long sendCount = simulationConfig.getHopCount().get() - (long) totalRound;
+        long bytesPerSend = allocatedBytes / sendCount;
+        log.info("数据包数量: {}, 每轮发送跳数: {}, 每跳分配内存: {}B", sendingPackets.size(), sendCount / totalRound, bytesPerSend);
+        // 接近0：只剩统计和JIT带来的少量分配；原来每跳都要新建重组过程、表项、数据包副本和接收队列节点，约1KB
+        Assertions.assertTrue(bytesPerSend <= 16,
+                String.format("每跳分配内存: %sB, 数据包数量: %s", bytesPerSend, sendingPackets.size()));
+    }
+}
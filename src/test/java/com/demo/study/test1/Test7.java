@@ -0,0 +1,404 @@
+package com.demo.study.test1;
+
+import com.demo.study.model.*;
+import com.demo.study.model.algo.Algorithm;
+import com.demo.study.model.algo.DbrAlgo;
+import com.demo.study.model.algo.DsAlgo;
+import com.demo.study.model.algo.MyRouteAlgo;
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 并发路由的测试：发送数据包时锁竞争的吞吐量、分路传送的执行方式（分治、虚拟线程）、线程池的运行情况、并行的重复实验、无锁扣除能量、并发统计失败原因
+ *
+ * @author Tongyu Wu
+ * @version 1.0
+ * @date 2024/8/11 16:05
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+public class Test7 {
+    /**
+     * 模拟空间的边长，危险距离取边长的一半
+     */
+    private static final int SPACE_SIZE = 500;
+
+
+    /**
+     * 每个线程在自己的一组节点（位置相同）上模拟路由，线程之间只共享发送数据包时的锁。
+     * 记录不同线程数下每秒完成的路由轮数，每个线程的路由结果与单线程的结果一致
+     */
+    @Test
+    void test1() throws Exception {
+        NodeConfig config = new NodeConfig();
+        Algorithm algorithm = new MyRouteAlgo();
+        List<Node> nodes = generateNodes(config);
+        int totalRound = 2000;
+
+        // 单线程的路由结果作为基准
+        int expectedSuccessCount = simulate(copy(nodes), config, algorithm, totalRound, null, 0, new UnavailableInfo());
+
+        int maxThreads = Math.max(2, Math.min(8, ThreadPoolConfig.RUNTIME.availableProcessors()));
+        for (int threads = 1; threads <= maxThreads; threads <<= 1) {
+            List<List<Node>> copies = Lists.newArrayListWithCapacity(threads);
+            for (int i = 0; i < threads; i++) {
+                copies.add(copy(nodes));
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                long start = System.nanoTime();
+                List<Future<Integer>> futures = Lists.newArrayListWithCapacity(threads);
+                for (List<Node> copy : copies) {
+                    futures.add(executor.submit(() -> simulate(copy, config, algorithm, totalRound, null, 0, new UnavailableInfo())));
+                }
+                for (Future<Integer> future : futures) {
+                    Assertions.assertEquals(expectedSuccessCount, future.get());
+                }
+                long elapsed = System.nanoTime() - start;
+                log.info("线程数: {}, 总轮数: {}, 耗时: {}ms, 吞吐量: {}轮/秒", threads, threads * totalRound,
+                        elapsed / 1_000_000, (long) threads * totalRound * 1_000_000_000L / elapsed);
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * 分治方式执行分路传送时，分路中再次发生故障（dangerousCount大于1）也能在限定时间内完成所有轮次
+     */
+    @Test
+    void test2() {
+        NodeConfig config = new NodeConfig();
+        List<Node> nodes = generateNodes(config);
+        UnavailableInfo unavailableInfo = new UnavailableInfo();
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(60),
+                () -> simulate(nodes, config, new MyRouteAlgo(), 300, RelayMode.FORK_JOIN, 3, unavailableInfo));
+        log.info("故障次数: {}, 幸存次数: {}", unavailableInfo.getEncountered(), unavailableInfo.getSurvived());
+        Assertions.assertTrue(unavailableInfo.getEncountered().get() > 0);
+    }
+
+    /**
+     * 线程池的队列满时拒绝任务，运行情况中的等待任务数和被拒绝的任务数正确
+     */
+    @Test
+    void test3() throws Exception {
+        NamedThreadPoolExecutor executor = new NamedThreadPoolExecutor("测试线程", 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            started.await();
+            // 唯一的线程被占用，第二个任务进入队列，第三个任务被拒绝
+            executor.execute(() -> {
+            });
+            Assertions.assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+            }));
+            PoolMetrics metrics = executor.metrics();
+            log.info("线程池: {}", metrics);
+            Assertions.assertEquals("测试线程", metrics.getName());
+            Assertions.assertEquals(1, metrics.getThreads());
+            Assertions.assertEquals(1, metrics.getActiveThreads());
+            Assertions.assertEquals(1, metrics.getQueueDepth());
+            Assertions.assertEquals(1, metrics.getRejectedTasks());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, executor.metrics().getCompletedTasks());
+        Assertions.assertEquals(0, executor.metrics().getQueueDepth());
+        Assertions.assertEquals(0, executor.metrics().getStealCount());
+
+        // 分治线程池不统计已完成的任务，窃取次数单独记录
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Assertions.assertEquals(Integer.valueOf(1), pool.submit(() -> 1).get());
+            PoolMetrics poolMetrics = ThreadPoolConfig.metrics(pool);
+            Assertions.assertEquals(0, poolMetrics.getCompletedTasks());
+            Assertions.assertEquals(pool.getStealCount(), poolMetrics.getStealCount());
+            Assertions.assertEquals(0, poolMetrics.getRejectedTasks());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 虚拟线程执行分路传送时，分路中再次发生故障（dangerousCount大于1）也能在限定时间内完成所有轮次。
+     * 只在java21配置打包后执行（mvn -Pjava21 verify）
+     */
+    @Test
+    void test4() {
+        Assumptions.assumeTrue(ThreadPoolConfig.isVirtualThreadSupported(), "没有使用java21配置打包");
+        NodeConfig config = new NodeConfig();
+        List<Node> nodes = generateNodes(config);
+        UnavailableInfo unavailableInfo = new UnavailableInfo();
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(60),
+                () -> simulate(nodes, config, new MyRouteAlgo(), 300, RelayMode.VIRTUAL_THREAD, 3, unavailableInfo));
+        log.info("故障次数: {}, 幸存次数: {}", unavailableInfo.getEncountered(), unavailableInfo.getSurvived());
+        Assertions.assertTrue(unavailableInfo.getEncountered().get() > 0);
+    }
+
+    /**
+     * 重复实验并行执行时，每个实验在自己的节点副本上模拟，结果与单线程的结果一致，并且不修改节点模板
+     */
+    @Test
+    void test5() {
+        NodeConfig config = new NodeConfig();
+        List<Node> template = generateNodes(config);
+        int totalRound = 500;
+        List<Algorithm> algorithms = Lists.newArrayList(new MyRouteAlgo(), new DsAlgo(), new DbrAlgo());
+
+        List<Integer> expected = Lists.newArrayList();
+        List<Replica> replicas = Lists.newArrayList();
+        for (Algorithm algorithm : algorithms) {
+            expected.add(simulate(copy(template), config, algorithm, totalRound, null, 0, new UnavailableInfo()));
+            for (int i = 0; i < 4; i++) {
+                replicas.add(Replica.builder()
+                        .algorithm(algorithm)
+                        .sweepPoint(i)
+                        .template(template)
+                        .neighborBuilderFactory(() -> new NeighborBuilder(config, new MyRouteAlgo()))
+                        .build());
+            }
+        }
+
+        List<Integer> results = new ReplicaRunner().run(replicas,
+                (replica, nodes) -> simulate(nodes, config, replica.getAlgorithm(), totalRound, null, 0, new UnavailableInfo()));
+        for (int i = 0; i < replicas.size(); i++) {
+            Assertions.assertEquals(expected.get(i / 4), results.get(i), replicas.get(i).toString());
+        }
+        for (Node node : template) {
+            Assertions.assertTrue(node.getIncompletePacketMapping().isEmpty());
+            Assertions.assertTrue(node.getCompletePacketMapping().isEmpty());
+        }
+    }
+
+    /**
+     * 多个线程同时扣除同一个节点的能量，不加锁也不会少扣或扣到0以下，扣除成功的次数正好是能量能支持的次数
+     */
+    @Test
+    void test6() throws Exception {
+        int threads = 4;
+        int energy = 100_000;
+        int debit = 3;
+        EnergyLedger ledger = new EnergyLedger(2);
+        ledger.set(1, energy);
+        LongAdder successCount = new LongAdder();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = Lists.newArrayListWithCapacity(threads);
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < energy; i++) {
+                        if (ledger.debit(1, debit)) {
+                            successCount.increment();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assertions.assertEquals(energy % debit, ledger.get(1));
+        Assertions.assertEquals(energy / debit, successCount.intValue());
+        Assertions.assertEquals(energy % debit, ledger.sum());
+    }
+
+    /**
+     * 多个线程同时记录失败原因时不丢失次数，合并多次实验的统计结果后次数相加
+     */
+    @Test
+    void test7() throws Exception {
+        int threads = 4;
+        int times = 100_000;
+        FailureStatistics failureStatistics = new FailureStatistics();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = Lists.newArrayListWithCapacity(threads);
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < times; i++) {
+                        MyUtils.saveFailureReason(failureStatistics, i % 3 == 0 ? FailureReason.REASON_9 : FailureReason.REASON_4);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long reason9 = (long) threads * ((times + 2) / 3);
+        Assertions.assertEquals(reason9, failureStatistics.get(FailureReason.REASON_9));
+        Assertions.assertEquals((long) threads * times - reason9, failureStatistics.get(FailureReason.REASON_4));
+        Assertions.assertEquals((long) threads * times, failureStatistics.total());
+        Assertions.assertEquals(Lists.newArrayList(FailureReason.REASON_4, FailureReason.REASON_9),
+                Lists.newArrayList(failureStatistics.toMap().keySet()));
+
+        FailureStatistics other = new FailureStatistics();
+        other.record(FailureReason.REASON_1);
+        other.record(FailureReason.REASON_9);
+        failureStatistics.merge(other);
+        Assertions.assertEquals(1, failureStatistics.get(FailureReason.REASON_1));
+        Assertions.assertEquals(reason9 + 1, failureStatistics.get(FailureReason.REASON_9));
+        Assertions.assertEquals(1, other.get(FailureReason.REASON_9));
+
+        failureStatistics.reset();
+        Assertions.assertTrue(failureStatistics.isEmpty());
+        Assertions.assertTrue(failureStatistics.toMap().isEmpty());
+    }
+
+    /**
+     * 修改线程池大小时，没有指定的值使用系统属性，系统属性也没有时使用默认值；
+     * 查看运行情况时不创建还没有使用的线程池
+     */
+    @Test
+    void test8() {
+        String threadsKey = String.format("%s.%s.threads", ThreadPoolConfig.PROPERTY_PREFIX, ThreadPoolConfig.REPLICA);
+        String queueCapacityKey = String.format("%s.%s.queue-capacity", ThreadPoolConfig.PROPERTY_PREFIX, ThreadPoolConfig.REPLICA);
+        System.setProperty(threadsKey, "3");
+        System.setProperty(queueCapacityKey, "16");
+        try {
+            ThreadPoolConfig.configure(ThreadPoolConfig.REPLICA, new PoolSettings());
+            Assertions.assertEquals(3, ThreadPoolConfig.settings(ThreadPoolConfig.REPLICA).getThreads());
+            Assertions.assertEquals(16, ThreadPoolConfig.settings(ThreadPoolConfig.REPLICA).getQueueCapacity());
+            int created = ThreadPoolConfig.metrics().size();
+            Assertions.assertEquals(created, ThreadPoolConfig.metrics().size());
+            NamedThreadPoolExecutor executor = ThreadPoolConfig.replicaExecutor();
+            Assertions.assertEquals(3, executor.getCorePoolSize());
+            Assertions.assertEquals(16, executor.getQueue().remainingCapacity() + executor.getQueue().size());
+
+            PoolSettings settings = new PoolSettings();
+            settings.setThreads(2);
+            ThreadPoolConfig.configure(ThreadPoolConfig.REPLICA, settings);
+            Assertions.assertEquals(2, ThreadPoolConfig.settings(ThreadPoolConfig.REPLICA).getThreads());
+            executor = ThreadPoolConfig.replicaExecutor();
+            Assertions.assertEquals(2, executor.getCorePoolSize());
+            Assertions.assertEquals(16, executor.getQueue().remainingCapacity() + executor.getQueue().size());
+        } finally {
+            System.clearProperty(threadsKey);
+            System.clearProperty(queueCapacityKey);
+            ThreadPoolConfig.configure(ThreadPoolConfig.REPLICA, new PoolSettings());
+        }
+    }
+
+    /**
+     * 当前环境不支持虚拟线程时，创建配置就改用线程池执行分路传送，路由过程中不会因为执行方式抛出异常
+     */
+    @Test
+    void test9() {
+        RelayMode expected = ThreadPoolConfig.isVirtualThreadSupported() ? RelayMode.VIRTUAL_THREAD : RelayMode.THREAD_POOL;
+        SimulationConfig simulationConfig = SimulationConfig.builder()
+                .relayMode(RelayMode.VIRTUAL_THREAD)
+                .build();
+        Assertions.assertEquals(expected, simulationConfig.getRelayMode());
+        simulationConfig.setRelayMode(RelayMode.FORK_JOIN);
+        simulationConfig.setRelayMode(RelayMode.VIRTUAL_THREAD);
+        Assertions.assertEquals(expected, simulationConfig.getRelayMode());
+
+        NodeConfig config = new NodeConfig();
+        UnavailableInfo unavailableInfo = new UnavailableInfo();
+        simulate(generateNodes(config), config, new MyRouteAlgo(), 100, RelayMode.VIRTUAL_THREAD, 1, unavailableInfo);
+        Assertions.assertTrue(unavailableInfo.getEncountered().get() > 0);
+    }
+
+    /**
+     * 在边长为SPACE_SIZE的空间中生成节点，并建立邻里关系
+     */
+    private static List<Node> generateNodes(NodeConfig config) {
+        GenerateConfig generateConfig = GenerateConfig.builder()
+                .x(SPACE_SIZE)
+                .y(SPACE_SIZE)
+                .z(SPACE_SIZE)
+                .gapDistance(50)
+                .aroundNodeSize(5)
+                .initEnergy(config.getEnergy())
+                .build();
+        return copy(MyUtils.generateNodes2(generateConfig));
+    }
+
+    /**
+     * 复制一组位置和能量相同的节点，并建立邻里关系
+     */
+    private static List<Node> copy(List<Node> nodes) {
+        NodeConfig config = new NodeConfig();
+        List<Node> copies = Lists.newArrayListWithCapacity(nodes.size());
+        for (Node node : nodes) {
+            copies.add(MyUtils.initNode(node.getId(), node.getPoint(), node.getEnergy()));
+        }
+        new NeighborBuilder(config, new MyRouteAlgo()).build(copies);
+        copies.get(0).setEnergy(config.getEnergy() * 200);
+        return copies;
+    }
+
+    /**
+     * 模拟多轮路由，每轮从第一个节点向最后一个节点发送同一段数据，轮与轮之间恢复本轮修改过的节点
+     *
+     * @param relayMode       分路传送的执行方式，为null时关闭分路传送
+     * @param dangerousCount  每轮路由中允许发生故障的次数
+     * @param unavailableInfo 记录发生故障和幸存的次数
+     * @return 路由成功的轮数
+     */
+    private static int simulate(List<Node> nodes, NodeConfig config, Algorithm algorithm, int totalRound,
+                                RelayMode relayMode, int dangerousCount, UnavailableInfo unavailableInfo) {
+        SimulationConfig simulationConfig = SimulationConfig.builder()
+                .algorithm(algorithm)
+                .nodes(nodes)
+                .topology(Topology.of(nodes))
+                .config(config)
+                .primitivePathFlag(true)
+                .enableRelayFlag(relayMode != null)
+                .relayMode(relayMode)
+                .dangerousDistance(SPACE_SIZE / 2)
+                .nodeStates(NodeStates.of(nodes))
+                .unavailableInfo(unavailableInfo)
+                .failureReasons(new FailureStatistics())
+                .build();
+        int successCount = 0;
+        for (int i = 0; i < totalRound; i++) {
+            TreeMap<Integer, Packet> sendingPackets = MyUtils.getSubPackets(nodes.get(0),
+                    nodes.get(nodes.size() - 1),
+                    "Hello, world! It's my first java program. I am very happy to share with you!",
+                    config.getBytesByOptical());
+            simulationConfig.setSubPacketMapping(sendingPackets);
+            simulationConfig.setConsumeTime(new DelayAccumulator());
+            simulationConfig.setConsumeEnergy(new LongAdder());
+            simulationConfig.setHopCount(new AtomicInteger());
+            simulationConfig.setDangerousFlag(false);
+            simulationConfig.setDangerousCount(dangerousCount);
+            if (algorithm.route(simulationConfig)) {
+                successCount++;
+            }
+            simulationConfig.getNodeStates().restoreRound();
+        }
+        return successCount;
+    }
+}